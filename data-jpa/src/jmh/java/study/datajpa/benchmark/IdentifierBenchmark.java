@@ -0,0 +1,89 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+//insert 당 JDBC statement 수 비교 - 시퀀스 allocation-size 1 vs 50
+//TeamRepository.save() 로 TEAMS 건을 저장하고 롤백한다.
+//statements / inserts 가 insert 당 statement 수이다. (allocation-size 1 이면 시퀀스 조회가 insert 마다 붙는다.)
+//Persistable.isNew() 덕분에 save() 가 merge 용 SELECT 를 하지 않으므로 entityLoads 는 0 이어야 한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdentifierBenchmark {
+
+    static final int TEAMS = 100;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    ConfigurableApplicationContext context;
+    TeamRepository teamRepository;
+    TransactionTemplate tx;
+    Statistics statistics;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long statements;
+        public long inserts;
+        public long entityLoads;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh-id;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.datajpa.id.allocation-size=" + allocationSize,
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.study.datajpa=warn",
+                        "--decorator.datasource.enabled=false");
+        teamRepository = context.getBean(TeamRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int save(Counters counters) {
+        statistics.clear();
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < TEAMS; i++) {
+                teamRepository.save(new Team("team" + i));
+            }
+            teamRepository.flush();
+            status.setRollbackOnly();
+        });
+        counters.statements += statistics.getPrepareStatementCount();
+        counters.inserts += statistics.getEntityInsertCount();
+        counters.entityLoads += statistics.getEntityLoadCount();
+        return TEAMS;
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import study.datajpa.entity.Member;
+import study.datajpa.service.MemberService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//경합 상황 처리량 비교 - 낙관적 락 + 재시도 vs PESSIMISTIC_WRITE
+//8개 스레드가 hotMembers 명의 회원을 무작위로 수정한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class LockContentionBenchmark {
+
+    @Param({"4", "32"})
+    public int hotMembers;
+
+    MemberService memberService;
+    List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededContext ctx) {
+        memberService = ctx.context.getBean(MemberService.class);
+        ids = ctx.tx.execute(status -> ctx.memberJpaRepository.findByPage(SeededContext.AGES - 1, 0, hotMembers))
+                .stream().map(Member::getId).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int optimistic() {
+        return memberService.agePlus(randomId());
+    }
+
+    @Benchmark
+    public int pessimistic() {
+        return memberService.agePlusPessimistic(randomId());
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.dto.MemberColumns;
+import study.datajpa.dto.MemberDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//전체 회원 조회: DTO 리스트 vs 컬럼형 배열
+//gc 프로파일러의 gc.alloc.rate.norm (B/op) 을 memberCount 로 나누면 행당 할당량이다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberColumnarBenchmark {
+
+    @Benchmark
+    public List<MemberDto> dtoList(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findMemberDto());
+    }
+
+    @Benchmark
+    public List<String> usernameList(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findUsernameList());
+    }
+
+    @Benchmark
+    public MemberColumns columnar(SeededContext ctx) {
+        return ctx.memberColumnarRepository.findAll();
+    }
+}
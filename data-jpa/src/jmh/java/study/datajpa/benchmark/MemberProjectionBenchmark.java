@@ -0,0 +1,48 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//엔티티 조회 vs Projection 조회 비교
+//gc 프로파일러의 gc.alloc.rate.norm (B/op) 으로 할당량 차이를 본다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberProjectionBenchmark {
+
+    static final int AGE = 10;
+    static final PageRequest PAGE = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "username"));
+
+    //엔티티 조회 후 flush 까지 (스냅샷 + 더티체킹 비용 포함)
+    @Benchmark
+    public List<Member> entityByUsernameAndAge(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findByUsernameAndAgeGreaterThan("member" + AGE, 5));
+    }
+
+    @Benchmark
+    public List<MemberView> projectionByUsernameAndAge(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberQueryRepository.findViewByUsernameAndAgeGreaterThan("member" + AGE, 5));
+    }
+
+    @Benchmark
+    public Page<Member> entityByAge(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findByAge(AGE, PAGE));
+    }
+
+    @Benchmark
+    public Page<MemberView> projectionByAge(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberQueryRepository.findViewByAge(AGE, PAGE));
+    }
+}
@@ -0,0 +1,119 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//MemberRepository / MemberJpaRepository 주요 경로 측정
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberRepositoryBenchmark {
+
+    static final int PAGE_SIZE = 20;
+    static final int AGE = 10;
+
+    //깊은 페이지 직전 커서 (키셋 페이징 비교용)
+    String deepCursor;
+    int deepOffset;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededContext ctx) {
+        deepOffset = Math.max(0, ctx.membersPerAge() - PAGE_SIZE);
+        deepCursor = ctx.tx.execute(status -> {
+            List<Member> before = ctx.memberJpaRepository.findByPage(AGE, Math.max(0, deepOffset - 1), 1);
+            return before.isEmpty() ? null : MemberCursor.of(before.get(0)).encode();
+        });
+    }
+
+    @Benchmark
+    public List<Member> findByUsernameAndAgeGreaterThan(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findByUsernameAndAgeGreaterThan("member" + AGE, 5));
+    }
+
+    //offset 페이징 - 첫 페이지 (카운트 쿼리 포함)
+    @Benchmark
+    public List<Member> findByAgeFirstPage(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findByAge(AGE,
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "username"))).getContent());
+    }
+
+    //offset 페이징 - 마지막 페이지, 앞쪽 row 를 모두 읽고 버린다.
+    @Benchmark
+    public List<Member> findByAgeDeepOffset(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberJpaRepository.findByPage(AGE, deepOffset, PAGE_SIZE));
+    }
+
+    //키셋 페이징 - 같은 위치를 커서로 조회
+    @Benchmark
+    public Slice<Member> findByAgeDeepKeyset(SeededContext ctx) {
+        return ctx.tx.execute(status -> ctx.memberRepository.findByAgeAfter(AGE, deepCursor, PAGE_SIZE));
+    }
+
+    //페치조인 - 쿼리 1번
+    @Benchmark
+    public void findMemberFetchJoin(SeededContext ctx, Blackhole bh) {
+        ctx.tx.executeWithoutResult(status -> {
+            for (Member member : ctx.memberRepository.findMemberFetchJoin()) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    //지연로딩 - 팀 수 만큼 쿼리 (N+1)
+    @Benchmark
+    public void findAllLazyTeam(SeededContext ctx, Blackhole bh) {
+        ctx.tx.executeWithoutResult(status -> {
+            for (Member member : ctx.memberJpaRepository.findAll()) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public Integer bulkAgePlus(SeededContext ctx) {
+        return ctx.rollback(() -> ctx.memberRepository.bulkAgePlus(AGE));
+    }
+
+    //단건 save 반복
+    @Benchmark
+    public Integer saveSingle(SeededContext ctx) {
+        return ctx.rollback(() -> {
+            for (Member member : newMembers()) {
+                ctx.memberJpaRepository.save(member);
+            }
+            //JPQL 실행 전 자동 flush 로 insert 를 내보낸다.
+            ctx.memberJpaRepository.count();
+            return PAGE_SIZE * 5;
+        });
+    }
+
+    //배치 save
+    @Benchmark
+    public Long saveBatched(SeededContext ctx) {
+        return ctx.rollback(() -> ctx.memberJpaRepository.saveAllBatched(newMembers()));
+    }
+
+    private static List<Member> newMembers() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE * 5; i++) {
+            members.add(new Member("bench" + i, AGE));
+        }
+        return members;
+    }
+}
@@ -0,0 +1,109 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberColumnarRepository;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberQueryRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamJpaRepository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+//벤치마크 공통 상태
+//인메모리 H2 로 애플리케이션을 띄우고 memberCount 건을 미리 넣어둔다.
+//회원은 팀 10명 단위, 나이는 0 ~ AGES-1 로 고르게 나눈다.
+@State(Scope.Benchmark)
+public class SeededContext {
+
+    static final int AGES = 100;
+    static final int MEMBERS_PER_TEAM = 10;
+
+    @Param({"10000"})
+    public int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberJpaRepository memberJpaRepository;
+    MemberQueryRepository memberQueryRepository;
+    MemberColumnarRepository memberColumnarRepository;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.study.datajpa=warn",
+                        "--decorator.datasource.enabled=false");
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberQueryRepository = context.getBean(MemberQueryRepository.class);
+        memberColumnarRepository = context.getBean(MemberColumnarRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        seed(context.getBean(TeamJpaRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //나이별 회원 수 - 깊은 페이지 offset 계산에 사용
+    int membersPerAge() {
+        return memberCount / AGES;
+    }
+
+    //변경 작업은 롤백해서 다음 측정에 영향을 주지 않게 한다.
+    <T> T rollback(Supplier<T> work) {
+        return tx.execute(status -> {
+            status.setRollbackOnly();
+            return work.get();
+        });
+    }
+
+    private void seed(TeamJpaRepository teamJpaRepository) {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < memberCount / MEMBERS_PER_TEAM + 1; i++) {
+            teams.add(new Team("team" + i));
+        }
+        tx.execute(status -> teamJpaRepository.saveAllBatched(teams));
+
+        //팀 컬렉션에 쌓이지 않도록 setTeam 으로 연관관계만 건다.
+        Iterable<Member> members = () -> new Iterator<Member>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < memberCount;
+            }
+
+            @Override
+            public Member next() {
+                Member member = new Member("member" + i, i % AGES);
+                member.setTeam(teams.get(i / MEMBERS_PER_TEAM));
+                i++;
+                return member;
+            }
+        };
+        tx.execute(status -> memberJpaRepository.saveAllBatched(members));
+    }
+}
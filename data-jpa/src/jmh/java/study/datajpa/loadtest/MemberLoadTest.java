@@ -0,0 +1,112 @@
+package study.datajpa.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//동시 요청 부하 테스트
+//인메모리 H2 로 애플리케이션을 띄우고 concurrency 개 요청을 한꺼번에 보내서 p50/p99 지연 시간을 잰다.
+//./gradlew loadTest -PloadTestConcurrency=5000
+public class MemberLoadTest {
+
+    private static final int MEMBERS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        Path report = Paths.get(args.length > 1 ? args[1] : "build/reports/loadtest/results.json");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.study.datajpa=warn",
+                        "--decorator.datasource.enabled=false",
+                        "--diagnostics.n-plus-one.mode=off");
+        try {
+            seed(context.getBean(MemberJpaRepository.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long[] latencies = fire(port, concurrency);
+            write(report, concurrency, latencies);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seed(MemberJpaRepository memberJpaRepository) {
+        Iterable<Member> members = () -> new Iterator<Member>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < MEMBERS;
+            }
+
+            @Override
+            public Member next() {
+                Member member = new Member("member" + i, i % 100);
+                i++;
+                return member;
+            }
+        };
+        memberJpaRepository.saveAllBatched(members);
+    }
+
+    private static long[] fire(int port, int concurrency) {
+        HttpClient client = HttpClient.newHttpClient();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Long>> requests = new ArrayList<>();
+
+        for (int i = 0; i < concurrency; i++) {
+            URI uri = URI.create("http://localhost:" + port + "/members?username=member" + (i % MEMBERS));
+            long start = System.nanoTime();
+            requests.add(client.sendAsync(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        return System.nanoTime() - start;
+                    }));
+        }
+
+        long[] latencies = requests.stream().map(CompletableFuture::join).mapToLong(Long::longValue).toArray();
+        if (failures.get() > 0) {
+            System.out.println("failed requests : " + failures.get());
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void write(Path report, int concurrency, long[] latencies) throws IOException {
+        String json = String.format(
+                "{\"concurrency\":%d,\"p50Ms\":%.2f,\"p99Ms\":%.2f,\"maxMs\":%.2f}",
+                concurrency, percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1] / 1e6);
+        System.out.println(json);
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        Files.write(report, json.getBytes());
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    //다른 InvalidationChannel 빈(Redis 등)이 없으면 로컬 채널을 쓴다.
+    @Bean
+    @ConditionalOnMissingBean(InvalidationChannel.class)
+    public InvalidationChannel localInvalidationChannel() {
+        return new LocalInvalidationChannel();
+    }
+}
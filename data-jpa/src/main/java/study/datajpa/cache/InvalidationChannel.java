@@ -0,0 +1,13 @@
+package study.datajpa.cache;
+
+import java.util.function.Consumer;
+
+//노드 간 캐시 무효화 메시지 채널
+//운영에서는 Redis pub/sub, Kafka 등으로 구현하고, 단일 노드/테스트는 LocalInvalidationChannel 을 쓴다.
+//key 가 null 이면 전체 무효화
+public interface InvalidationChannel {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Consumer<InvalidationMessage> listener);
+}
@@ -0,0 +1,12 @@
+package study.datajpa.cache;
+
+import lombok.Value;
+
+@Value
+public class InvalidationMessage {
+
+    //보낸 노드 - 자기가 보낸 메시지는 무시한다.
+    String nodeId;
+    String cacheName;
+    String key;
+}
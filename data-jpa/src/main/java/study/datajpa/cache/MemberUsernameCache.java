@@ -0,0 +1,141 @@
+package study.datajpa.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.repository.MemberQueryRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+//username 조회 read-through 캐시
+//로그인/프로필처럼 username 조회가 가장 많아서 불변 스냅샷(MemberSnapshot)을 프로세스 안에 둔다.
+//Caffeine 은 W-TinyLFU 로 자주 쓰이는 키를 남기고 한 번 쓰고 마는 키는 빨리 내보낸다.
+//회원 저장/수정/삭제 시 MemberUsernameCacheListener 가 무효화하고, 다른 노드에는 InvalidationChannel 로 전파한다.
+//스냅샷에 팀 이름이 들어 있으므로 팀 수정/삭제 시 TeamUsernameCacheListener 가 그 팀 회원의 키를 비운다.
+@Component
+public class MemberUsernameCache {
+
+    static final String CACHE_NAME = "member.username";
+    //팀 단위 무효화 메시지 - key 는 teamId
+    static final String TEAM_CACHE_NAME = "member.username.team";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Cache<String, List<MemberSnapshot>> cache;
+    private final MemberQueryRepository memberQueryRepository;
+    private final InvalidationChannel channel;
+
+    public MemberUsernameCache(MemberQueryRepository memberQueryRepository,
+                               InvalidationChannel channel,
+                               MeterRegistry registry,
+                               @Value("${cache.member-username.maximum-size:100000}") long maximumSize,
+                               @Value("${cache.member-username.expire-after-write-ms:600000}") long expireAfterWriteMillis) {
+        this.memberQueryRepository = memberQueryRepository;
+        this.channel = channel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        channel.subscribe(this::onMessage);
+    }
+
+    //캐시에 있을 때만 돌려준다. (없으면 null - DB 를 읽지 않는다.)
+    public List<MemberSnapshot> getIfPresent(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    public List<MemberSnapshot> findByUsername(String username) {
+        return cache.get(username, memberQueryRepository::findSnapshotByUsername);
+    }
+
+    //findReadOnlyByUsername 대응
+    public Optional<MemberSnapshot> findOneByUsername(String username) {
+        return findByUsername(username).stream().findFirst();
+    }
+
+    //findUser(username, age) 대응
+    public List<MemberSnapshot> findUser(String username, int age) {
+        return findByUsername(username).stream()
+                .filter(member -> member.getAge() == age)
+                .collect(Collectors.toList());
+    }
+
+    //트랜잭션 안이면 커밋/롤백 후에 한 번 더 비워서, 커밋 전 값을 다시 읽어간 경우도 버린다.
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        evictAndPublish(username);
+        afterCompletion(() -> evictAndPublish(username));
+    }
+
+    public void invalidateTeam(Long teamId) {
+        if (teamId == null) {
+            return;
+        }
+        evictTeamAndPublish(teamId);
+        afterCompletion(() -> evictTeamAndPublish(teamId));
+    }
+
+    public void invalidateAll() {
+        evictAndPublish(null);
+        afterCompletion(() -> evictAndPublish(null));
+    }
+
+    private void evictAndPublish(String username) {
+        evictLocal(username);
+        channel.publish(new InvalidationMessage(nodeId, CACHE_NAME, username));
+    }
+
+    private void evictTeamAndPublish(Long teamId) {
+        evictTeamLocal(teamId);
+        channel.publish(new InvalidationMessage(nodeId, TEAM_CACHE_NAME, teamId.toString()));
+    }
+
+    private void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        if (CACHE_NAME.equals(message.getCacheName())) {
+            evictLocal(message.getKey());
+        } else if (TEAM_CACHE_NAME.equals(message.getCacheName())) {
+            evictTeamLocal(Long.valueOf(message.getKey()));
+        }
+    }
+
+    //팀 이름 변경은 드물어서 캐시 전체를 훑어 그 팀 회원이 들어 있는 키만 지운다.
+    private void evictTeamLocal(Long teamId) {
+        cache.asMap().values().removeIf(members -> members.stream().anyMatch(member -> teamId.equals(member.getTeamId())));
+    }
+
+    private void evictLocal(String username) {
+        if (username == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(username);
+        }
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//회원 변경 시 username 캐시 무효화
+//username 이 바뀌면 이전 username 키도 비워야 해서 로딩 시점 username 을 엔티티에 기억해둔다.
+public class MemberUsernameCacheListener {
+
+    private final ObjectProvider<MemberUsernameCache> memberUsernameCache;
+
+    public MemberUsernameCacheListener(ObjectProvider<MemberUsernameCache> memberUsernameCache) {
+        this.memberUsernameCache = memberUsernameCache;
+    }
+
+    @PostLoad
+    public void remember(Member member) {
+        member.rememberLoadedUsername();
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Member member) {
+        memberUsernameCache.ifAvailable(cache -> {
+            cache.invalidate(member.getUsername());
+            if (member.getLoadedUsername() != null && !member.getLoadedUsername().equals(member.getUsername())) {
+                cache.invalidate(member.getLoadedUsername());
+            }
+        });
+        member.rememberLoadedUsername();
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Team;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//팀 수정/삭제 시 username 캐시 무효화
+//MemberSnapshot 에 팀 이름이 들어 있어서 팀 이름이 바뀌면 그 팀 회원의 스냅샷을 비운다.
+public class TeamUsernameCacheListener {
+
+    private final ObjectProvider<MemberUsernameCache> memberUsernameCache;
+
+    public TeamUsernameCacheListener(ObjectProvider<MemberUsernameCache> memberUsernameCache) {
+        this.memberUsernameCache = memberUsernameCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Team team) {
+        memberUsernameCache.ifAvailable(cache -> cache.invalidateTeam(team.getId()));
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+//비동기 리파지토리 실행 설정
+//JDK 21 이상이면 가상 스레드, 아니면 고정 크기 스레드 풀을 쓴다.
+//소스 호환성은 17 이라서 가상 스레드 executor 는 리플렉션으로 만든다.
+//TaskDecorator 빈이 있으면 (예: read-your-writes 마커 전달) 넘겨받는 작업마다 적용한다.
+@Slf4j
+@Configuration
+public class AsyncRepositoryConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService repositoryExecutor(@Value("${async.repository.virtual-threads:true}") boolean virtualThreads,
+                                              @Value("${async.repository.platform-threads:200}") int platformThreads,
+                                              ObjectProvider<TaskDecorator> taskDecorator) {
+        ExecutorService executor = createExecutor(virtualThreads, platformThreads);
+        TaskDecorator decorator = taskDecorator.getIfUnique();
+        return decorator == null ? executor : new DecoratingExecutorService(executor, decorator);
+    }
+
+    private static ExecutorService createExecutor(boolean virtualThreads, int platformThreads) {
+        if (virtualThreads) {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                log.info("repository executor : virtual threads");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                log.info("virtual threads unavailable on this JVM, falling back to {} platform threads", platformThreads);
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads);
+    }
+
+    //가상 스레드를 쓰는 경우 톰캣 요청 처리도 같은 executor 에서 실행한다.
+    //일반 스레드 풀이면 톰캣 기본 풀을 그대로 쓴다.
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> repositoryExecutorTomcatCustomizer(ExecutorService repositoryExecutor) {
+        ExecutorService executor = repositoryExecutor instanceof DecoratingExecutorService
+                ? ((DecoratingExecutorService) repositoryExecutor).getDelegate()
+                : repositoryExecutor;
+        return protocolHandler -> {
+            if (!(executor instanceof ThreadPoolExecutor)) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//넘겨받는 작업마다 TaskDecorator 를 적용하는 ExecutorService
+//(호출한 스레드의 컨텍스트 - 예: read-your-writes 마커 - 를 실행 스레드로 넘긴다.)
+class DecoratingExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final TaskDecorator decorator;
+
+    DecoratingExecutorService(ExecutorService delegate, TaskDecorator decorator) {
+        this.delegate = delegate;
+        this.decorator = decorator;
+    }
+
+    ExecutorService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(decorator.decorate(command));
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
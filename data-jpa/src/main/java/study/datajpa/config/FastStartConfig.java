@@ -0,0 +1,20 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+//fast-start 프로필 - EntityManagerFactory 를 별도 스레드에서 만든다.
+//repositoryExecutor(ExecutorService) 가 있어서 스프링 부트 기본 applicationTaskExecutor 가 만들어지지 않으므로
+//bootstrap-mode: deferred 가 쓸 AsyncTaskExecutor 를 직접 등록한다. (AsyncTaskExecutor 가 하나면 그것을 쓴다.)
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    @Bean
+    public AsyncTaskExecutor jpaBootstrapExecutor() {
+        return new SimpleAsyncTaskExecutor("jpa-bootstrap-");
+    }
+}
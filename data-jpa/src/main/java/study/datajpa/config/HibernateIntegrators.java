@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//hibernate.integrator_provider 는 값이 하나라서 여러 설정에서 Integrator 를 등록하면 앞의 것을 덮어쓴다.
+//이미 등록된 IntegratorProvider 가 있으면 합쳐서 모두 적용되게 한다.
+public final class HibernateIntegrators {
+
+    private HibernateIntegrators() {
+    }
+
+    public static HibernatePropertiesCustomizer register(Integrator integrator) {
+        IntegratorProvider added = () -> Collections.singletonList(integrator);
+        return properties -> properties.merge(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, added,
+                (previous, next) -> (IntegratorProvider) () -> {
+                    List<Integrator> integrators = new ArrayList<>(((IntegratorProvider) previous).getIntegrators());
+                    integrators.addAll(((IntegratorProvider) next).getIntegrators());
+                    return integrators;
+                });
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+//쿼리 플랜 캐시 지표
+//hibernate.query.plan.cache.hit / miss, hibernate.query.plan.cache.hit.ratio
+@Configuration
+public class QueryPlanCacheMetricsConfig {
+
+    @Bean
+    public MeterBinder queryPlanCacheMetrics(EntityManagerFactory emf) {
+        return registry -> {
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            FunctionCounter.builder("hibernate.query.plan.cache.hit", statistics, Statistics::getQueryPlanCacheHitCount)
+                    .register(registry);
+            FunctionCounter.builder("hibernate.query.plan.cache.miss", statistics, Statistics::getQueryPlanCacheMissCount)
+                    .register(registry);
+            Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetricsConfig::hitRatio)
+                    .register(registry);
+        };
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
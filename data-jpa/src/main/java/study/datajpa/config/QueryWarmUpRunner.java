@@ -0,0 +1,116 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberQueryRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamJpaRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//기동 시 쿼리 예열
+//@Query / 네임드쿼리는 기동 시점에 Spring Data 와 Hibernate 가 이미 검증(컴파일)한다.
+//파생 쿼리와 리파지토리의 문자열 JPQL 은 처음 호출될 때 JPQL -> SQL 변환을 하기 때문에
+//없는 값으로 한 번씩 실행해서 쿼리 플랜 캐시와 커넥션의 statement 캐시를 채워둔다.
+//읽기 전용 트랜잭션으로 실행하고 롤백한다.
+//리파지토리의 조회 메소드(find* / count* / total*, Stream 반환 제외)는 모두 targets() 에 있어야 한다.
+//QueryWarmUpRunnerTest 가 리플렉션으로 조회 메소드를 찾아서 빠진 것이 있으면 실패한다.
+//인자가 없는 전체 조회(findAll, findMemberCustom 등)도 한 번 실행한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class QueryWarmUpRunner implements ApplicationRunner {
+
+    private static final String NONE = "__warmup__";
+    private static final int NO_AGE = -1;
+    private static final Long NO_ID = -1L;
+
+    private final MemberRepository memberRepository;
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final TeamRepository teamRepository;
+    private final TeamJpaRepository teamJpaRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Map<String, Runnable> targets = targets();
+        tx.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            targets.values().forEach(Runnable::run);
+        });
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        log.info("query warm-up : {} methods, {}ms, plan cache hit={}, miss={}",
+                targets.size(), System.currentTimeMillis() - start,
+                statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+    }
+
+    //키는 "리파지토리.메소드" (오버로드는 하나로 본다.)
+    Map<String, Runnable> targets() {
+        List<String> names = Collections.singletonList(NONE);
+        PageRequest page = PageRequest.of(0, 1);
+        Map<String, Runnable> targets = new LinkedHashMap<>();
+
+        targets.put("MemberRepository.findById", () -> memberRepository.findById(NO_ID));
+        targets.put("MemberRepository.findAll", memberRepository::findAll);
+        targets.put("MemberRepository.findByUsernameAndAgeGreaterThan", () -> memberRepository.findByUsernameAndAgeGreaterThan(NONE, NO_AGE));
+        targets.put("MemberRepository.findByUsername", () -> memberRepository.findByUsername(NONE));
+        targets.put("MemberRepository.findUser", () -> memberRepository.findUser(NONE, NO_AGE));
+        targets.put("MemberRepository.findUsernameList", memberRepository::findUsernameList);
+        targets.put("MemberRepository.findMemberDto", memberRepository::findMemberDto);
+        targets.put("MemberRepository.findByName", () -> memberRepository.findByName(names));
+        targets.put("MemberRepository.findMemberFetchJoin", memberRepository::findMemberFetchJoin);
+        targets.put("MemberRepository.findReadOnlyByUsername", () -> memberRepository.findReadOnlyByUsername(NONE));
+        targets.put("MemberRepository.findMemberCustom", memberRepository::findMemberCustom);
+        targets.put("MemberRepository.findByAgeAfter", () -> memberRepository.findByAgeAfter(NO_AGE, null, 1));
+        targets.put("MemberRepository.findByAge", () -> memberRepository.findByAge(NO_AGE, page));
+        targets.put("MemberRepository.findByAge_count", () -> memberRepository.findByAge_count(NO_AGE, page));
+
+        targets.put("MemberJpaRepository.find", () -> memberJpaRepository.find(NO_ID));
+        targets.put("MemberJpaRepository.findById", () -> memberJpaRepository.findById(NO_ID));
+        targets.put("MemberJpaRepository.findAll", memberJpaRepository::findAll);
+        targets.put("MemberJpaRepository.count", memberJpaRepository::count);
+        targets.put("MemberJpaRepository.findByUserNameAndAgeGreaterThen", () -> memberJpaRepository.findByUserNameAndAgeGreaterThen(NONE, NO_AGE));
+        targets.put("MemberJpaRepository.findByUsername", () -> memberJpaRepository.findByUsername(NONE));
+        targets.put("MemberJpaRepository.findByPage", () -> memberJpaRepository.findByPage(NO_AGE, 0, 1));
+        targets.put("MemberJpaRepository.findByPageAfter", () -> memberJpaRepository.findByPageAfter(NO_AGE, null, 1));
+        targets.put("MemberJpaRepository.totalCont", () -> memberJpaRepository.totalCont(NO_AGE));
+
+        targets.put("MemberQueryRepository.findViewByUsername", () -> memberQueryRepository.findViewByUsername(NONE));
+        targets.put("MemberQueryRepository.findViewByUsernameAndAgeGreaterThan", () -> memberQueryRepository.findViewByUsernameAndAgeGreaterThan(NONE, NO_AGE));
+        targets.put("MemberQueryRepository.findViewByAge", () -> memberQueryRepository.findViewByAge(NO_AGE, page));
+        targets.put("MemberQueryRepository.findViewByName", () -> memberQueryRepository.findViewByName(names));
+        targets.put("MemberQueryRepository.findDtoByUsername", () -> memberQueryRepository.findDtoByUsername(NONE));
+        targets.put("MemberQueryRepository.findDtoByAge", () -> memberQueryRepository.findDtoByAge(NO_AGE, page));
+        targets.put("MemberQueryRepository.findSnapshotByUsername", () -> memberQueryRepository.findSnapshotByUsername(NONE));
+
+        targets.put("TeamRepository.findAllByOrderByMemberCountDesc", () -> teamRepository.findAllByOrderByMemberCountDesc(page));
+
+        targets.put("TeamJpaRepository.findById", () -> teamJpaRepository.findById(NO_ID));
+        targets.put("TeamJpaRepository.findAll", teamJpaRepository::findAll);
+        targets.put("TeamJpaRepository.findAllOrderByMemberCount", () -> teamJpaRepository.findAllOrderByMemberCount(0, 1));
+        targets.put("TeamJpaRepository.count", teamJpaRepository::count);
+        return targets;
+    }
+}
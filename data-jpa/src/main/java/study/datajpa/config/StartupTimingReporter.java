@@ -0,0 +1,97 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//기동 단계별 시간 보고
+//DataJpaApplication 이 BufferingApplicationStartup 으로 기록한 단계를 묶어서 ready 시점에 한 줄로 남긴다.
+//ready 까지 걸린 시간(JVM 시작부터)이 startup.report.target-ms 를 넘으면 경고
+//단계는 겹칠 수 있다. (예: hibernate 는 context-refresh 안에 포함)
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "startup.report.enabled", havingValue = "true")
+public class StartupTimingReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Value("${startup.report.target-ms:5000}")
+    private long targetMillis;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        Map<String, Duration> phases = phases(event.getApplicationContext().getApplicationStartup());
+
+        StringBuilder report = new StringBuilder();
+        phases.forEach((phase, duration) -> report.append(phase).append('=').append(duration.toMillis()).append("ms "));
+        if (readyMillis > targetMillis) {
+            log.warn("startup : ready={}ms (target {}ms 초과) {}", readyMillis, targetMillis, report);
+        } else {
+            log.info("startup : ready={}ms (target {}ms) {}", readyMillis, targetMillis, report);
+        }
+    }
+
+    Map<String, Duration> phases(ApplicationStartup startup) {
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        if (!(startup instanceof BufferingApplicationStartup)) {
+            return phases;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) startup).getBufferedTimeline();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            String phase = phase(event.getStartupStep());
+            if (phase != null) {
+                phases.merge(phase, event.getDuration(), Duration::plus);
+            }
+        }
+        return phases;
+    }
+
+    private static String phase(StartupStep step) {
+        switch (step.getName()) {
+            case "spring.boot.application.environment-prepared":
+                return "environment";
+            case "spring.context.beans.post-process":
+                return "bean-definitions";
+            case "spring.data.repository.scanning":
+                return "repository-scanning";
+            case "spring.data.repository.init":
+                return "repository-init";
+            case "spring.context.refresh":
+                return "context-refresh";
+            case "spring.beans.instantiate":
+                return beanPhase(step);
+            default:
+                return null;
+        }
+    }
+
+    private static String beanPhase(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (!"beanName".equals(tag.getKey())) {
+                continue;
+            }
+            switch (tag.getValue()) {
+                case "entityManagerFactory":
+                    return "hibernate";
+                case "flywayInitializer":
+                    return "migration";
+                case "dataSource":
+                    return "datasource";
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,113 @@
+package study.datajpa.config.datasource;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+
+//read-your-writes 마커
+//호출한 쪽(요청/세션)마다 마지막으로 쓰기를 커밋한 시각을 들고 있고, sticky window 동안은 읽기도 primary 로 보낸다.
+//- ReadYourWritesFilter 가 요청 동안 현재 스레드에 마커를 묶고, 요청이 끝나면 푼다. (스레드 풀에 남지 않는다.)
+//- 다음 요청에서도 보이도록 처음 쓰기를 커밋할 때 마커를 HTTP 세션에 넣는다.
+//- repositoryExecutor 로 넘긴 작업은 taskDecorator() 로 같은 마커를 이어받는다.
+//- 쓰기는 WriteTrackingListener 가 실제로 insert/update/delete 가 실행된 경우에만 알려주고, 커밋된 뒤에 기록한다.
+//마커가 묶이지 않은 스레드(스케줄러 등)는 sticky 없이 라우팅된다.
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Marker> CURRENT = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static Marker current() {
+        return CURRENT.get();
+    }
+
+    //이전에 묶여 있던 마커를 돌려준다. 끝나면 restore 로 되돌린다.
+    public static Marker bind(Marker marker) {
+        Marker previous = CURRENT.get();
+        if (marker == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(marker);
+        }
+        return previous;
+    }
+
+    public static void restore(Marker previous) {
+        bind(previous);
+    }
+
+    //작업을 넘기는 스레드의 마커를 실행 스레드에 묶는다.
+    public static TaskDecorator taskDecorator() {
+        return runnable -> {
+            Marker marker = CURRENT.get();
+            return () -> {
+                Marker previous = bind(marker);
+                try {
+                    runnable.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        };
+    }
+
+    //쓰기 SQL 이 실행됐다. 트랜잭션 안이면 커밋된 뒤에, 밖이면(auto commit) 바로 기록한다.
+    static void writeExecuted() {
+        Marker marker = CURRENT.get();
+        if (marker == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            marker.markWrite();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof MarkOnCommit) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new MarkOnCommit(marker));
+    }
+
+    public static class Marker implements Serializable {
+
+        private volatile long lastWriteMillis;
+        //처음 쓰기를 기록할 때 한 번 호출 (세션에 저장)
+        private transient volatile Runnable onFirstWrite;
+
+        void setOnFirstWrite(Runnable onFirstWrite) {
+            this.onFirstWrite = onFirstWrite;
+        }
+
+        void markWrite() {
+            lastWriteMillis = System.currentTimeMillis();
+            Runnable callback = onFirstWrite;
+            if (callback != null) {
+                onFirstWrite = null;
+                callback.run();
+            }
+        }
+
+        boolean wroteWithin(long windowMillis) {
+            long lastWrite = lastWriteMillis;
+            return lastWrite != 0 && System.currentTimeMillis() - lastWrite < windowMillis;
+        }
+    }
+
+    private static class MarkOnCommit implements TransactionSynchronization {
+
+        private final Marker marker;
+
+        private MarkOnCommit(Marker marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        public void afterCommit() {
+            marker.markWrite();
+        }
+    }
+}
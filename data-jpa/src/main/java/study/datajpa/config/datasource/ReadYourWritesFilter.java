@@ -0,0 +1,49 @@
+package study.datajpa.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+//요청 동안 read-your-writes 마커를 현재 스레드에 묶는다.
+//세션에 마커가 있으면 이어서 쓰고, 없으면 새로 만들어서 처음 쓰기를 커밋할 때 세션에 넣는다.
+//요청이 끝나면 스레드에서 풀기 때문에 같은 스레드에 들어오는 다른 요청에 영향을 주지 않는다.
+@Slf4j
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String SESSION_ATTRIBUTE = ReadYourWritesFilter.class.getName() + ".MARKER";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        ReadYourWrites.Marker previous = ReadYourWrites.bind(marker(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.restore(previous);
+        }
+    }
+
+    private static ReadYourWrites.Marker marker(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Object marker = session == null ? null : session.getAttribute(SESSION_ATTRIBUTE);
+        if (marker instanceof ReadYourWrites.Marker) {
+            return (ReadYourWrites.Marker) marker;
+        }
+        ReadYourWrites.Marker created = new ReadYourWrites.Marker();
+        created.setOnFirstWrite(() -> {
+            try {
+                request.getSession(true).setAttribute(SESSION_ATTRIBUTE, created);
+            } catch (IllegalStateException e) {
+                //응답이 이미 커밋되어 세션을 만들 수 없으면 이번 요청 안에서만 sticky 하다.
+                log.debug("read-your-writes marker not stored in session : {}", e.getMessage());
+            }
+        });
+        return created;
+    }
+}
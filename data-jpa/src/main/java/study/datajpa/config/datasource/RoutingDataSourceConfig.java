@@ -0,0 +1,91 @@
+package study.datajpa.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//datasource.routing.enabled=true 일 때 primary(spring.datasource) + 레플리카 라우팅을 켠다.
+//풀 설정은 부트 기본 DataSource 와 같이 spring.datasource.hikari.* 를 primary/레플리카 모두에 적용하고,
+//레플리카별로 다르게 하려면 datasource.routing.replicas[i].hikari.* 로 덮어쓴다.
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties primaryProperties,
+                                                             RoutingDataSourceProperties routing,
+                                                             Environment environment) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            RoutingDataSourceProperties.Replica replica = routing.getReplicas().get(i);
+            String name = "replica-" + i;
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primaryProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+            //primary 와 풀 이름이 겹치지 않게 한다. (레플리카별 pool-name 이 있으면 그걸 쓴다.)
+            dataSource.setPoolName(name);
+            binder.bind("datasource.routing.replicas[" + i + "].hikari", Bindable.ofInstance(dataSource));
+            replicas.put(name, dataSource);
+        }
+
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas, routing.getStickyWindowMs());
+        dataSource.startHealthCheck(routing.getHealthCheckIntervalMs());
+        return dataSource;
+    }
+
+    //쓰기 SQL 실행을 read-your-writes 마커에 알린다. (p6spy 가 JdbcEventListener 빈을 등록한다.)
+    @Bean
+    public WriteTrackingListener writeTrackingListener() {
+        return new WriteTrackingListener();
+    }
+
+    //repositoryExecutor 로 넘긴 작업도 같은 마커를 쓰게 한다. (AsyncRepositoryConfig)
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator() {
+        return ReadYourWrites.taskDecorator();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private long stickyWindowMs = 1000;
+    private long healthCheckIntervalMs = 5000;
+    private List<Replica> replicas = new ArrayList<>();
+
+    //레플리카별 풀 설정(hikari.*)은 RoutingDataSourceConfig 가 HikariDataSource 에 직접 바인딩한다.
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private Map<String, String> hikari = new LinkedHashMap<>();
+    }
+}
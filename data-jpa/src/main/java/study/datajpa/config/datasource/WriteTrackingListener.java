@@ -0,0 +1,28 @@
+package study.datajpa.config.datasource;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+
+//insert/update/delete 가 실제로 실행된 트랜잭션만 read-your-writes 마커에 기록한다.
+//(readOnly 가 아닌 트랜잭션이라도 아무것도 쓰지 않았으면 sticky window 를 시작하지 않는다.)
+//엔티티 flush, JPQL/네이티브 벌크 연산, JdbcTemplate 모두 executeUpdate / executeBatch 로 들어온다.
+public class WriteTrackingListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, int rowCount,
+                                     SQLException e) {
+        if (e == null) {
+            ReadYourWrites.writeExecuted();
+        }
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos,
+                                    int[] updateCounts, SQLException e) {
+        if (e == null) {
+            ReadYourWrites.writeExecuted();
+        }
+    }
+}
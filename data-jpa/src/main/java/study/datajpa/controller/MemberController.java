@@ -0,0 +1,39 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.service.AsyncMemberService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+//CompletableFuture 를 반환하면 서블릿 비동기 처리로 응답한다.
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final AsyncMemberService asyncMemberService;
+
+    @GetMapping("/members/{id}")
+    public CompletableFuture<ResponseEntity<MemberDto>> findMember(@PathVariable Long id) {
+        return asyncMemberService.findById(id)
+                .thenApply(member -> member.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/members")
+    public CompletableFuture<List<MemberDto>> findByUsername(@RequestParam String username) {
+        return asyncMemberService.findByUsername(username);
+    }
+
+    @GetMapping("/members/age/{age}")
+    public CompletableFuture<Page<MemberDto>> findByAge(@PathVariable int age, Pageable pageable) {
+        return asyncMemberService.findByAge(age, pageable);
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.service.MemberExportService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+
+    //회원 내보내기 - 응답 출력 스트림에 바로 쓴다.
+    //format : ndjson(기본), csv
+    @GetMapping("/members/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"members.csv\"");
+            memberExportService.exportCsv(response.getOutputStream());
+        } else {
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+            memberExportService.exportNdjson(response.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.diagnostics;
+
+import org.hibernate.BaseSessionEventListener;
+
+//flush 시점 영속성 컨텍스트 엔티티 수를 리파지토리 호출 지표에 기록한다.
+//Hibernate 가 세션마다 생성하기 때문에 상태는 RepositoryMetricsContext 에 둔다.
+public class FlushSizeListener extends BaseSessionEventListener {
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RepositoryMetricsContext context = RepositoryMetricsContext.current();
+        if (context != null) {
+            context.flushedEntities = Math.max(context.flushedEntities, numberOfEntities);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//N+1 감지 설정
+//diagnostics.n-plus-one.mode (off / log / fail), diagnostics.n-plus-one.threshold
+@Configuration
+public class NPlusOneConfig {
+
+    @Bean
+    public NPlusOneDetector nPlusOneDetector(@Value("${diagnostics.n-plus-one.mode:off}") String mode,
+                                             @Value("${diagnostics.n-plus-one.threshold:10}") int threshold) {
+        return new NPlusOneDetector(NPlusOneDetector.Mode.valueOf(mode.toUpperCase()), threshold);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer nPlusOneStatementInspector(NPlusOneDetector detector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, detector);
+    }
+
+    //요청 단위로 감지 구간을 연다.
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> nPlusOneFilter(NPlusOneDetector detector) {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                detector.begin();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    detector.end();
+                }
+            }
+        };
+        return new FilterRegistrationBean<>(filter);
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//N+1 감지
+//Hibernate 가 실행하는 SQL 을 begin() ~ end() 구간(보통 요청 하나) 동안 모아서
+//같은 select 문이 threshold 번 반복되면 N+1 로 보고 로그를 남기거나 예외를 던진다.
+//지연로딩은 파라미터만 다르고 SQL 문자열은 같기 때문에 SQL 문자열로 묶어서 센다.
+@Slf4j
+public class NPlusOneDetector implements StatementInspector {
+
+    public enum Mode { OFF, LOG, FAIL }
+
+    private final Mode mode;
+    private final int threshold;
+    private final ThreadLocal<Map<String, Integer>> statements = new ThreadLocal<>();
+
+    public NPlusOneDetector(Mode mode, int threshold) {
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    public void begin() {
+        if (mode != Mode.OFF) {
+            statements.set(new HashMap<>());
+        }
+    }
+
+    public void end() {
+        statements.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Map<String, Integer> counts = statements.get();
+        if (counts == null || !sql.regionMatches(true, 0, "select", 0, 6)) {
+            return sql;
+        }
+        int count = counts.merge(sql, 1, Integer::sum);
+        if (count == threshold) {
+            String message = "N+1 의심 : 같은 쿼리가 " + count + "번 실행되었습니다. sql=" + sql;
+            if (mode == Mode.FAIL) {
+                throw new NPlusOneException(message);
+            }
+            log.warn(message);
+        }
+        return sql;
+    }
+}
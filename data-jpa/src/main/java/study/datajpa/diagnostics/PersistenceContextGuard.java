@@ -0,0 +1,176 @@
+package study.datajpa.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//영속성 컨텍스트 크기 감시
+//긴 트랜잭션에서 엔티티가 계속 쌓이면 flush 때 더티체킹이 (관리 엔티티 수)만큼 느려지고 스냅샷 때문에 GC 부담이 커진다.
+//엔티티가 로딩/저장될 때마다 관리 엔티티 수를 warnEntities 와 비교하고,
+//스냅샷 크기는 계산 비용이 커서 1000, 그 2배, 4배 ... 가 될 때만 추정해서 warnSnapshotBytes 와 비교한다. 둘 중 하나를 넘으면
+//- WARN  : 경고 로그
+//- CLEAR : batch() 구간 안이면 다음 checkpoint() 에서 flush + clear (구간 밖은 경고만)
+//조회 중간에 clear 하면 Hibernate 가 깨지므로, 비우는 것은 호출하는 쪽이 안전한 지점에서 부르는 checkpoint() 에서만 한다.
+//경고 로그는 세션마다 한 번만 남긴다.
+@Slf4j
+public class PersistenceContextGuard {
+
+    public enum Mode { OFF, WARN, CLEAR }
+
+    private static final int FIRST_CHECK = 1000;
+
+    private final Mode mode;
+    private final int warnEntities;
+    private final long warnSnapshotBytes;
+    private final Counter warnings;
+    private final Counter clears;
+
+    //세션은 스레드에 묶여 있으므로 스레드별로 마지막 세션과 다음 검사 지점을 기억한다.
+    //세션을 붙잡고 있지 않도록 트랜잭션이 끝나거나 세션이 닫히면 비운다. (SessionEventListener)
+    private final ThreadLocal<State> state = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> batch = new ThreadLocal<>();
+
+    public PersistenceContextGuard(Mode mode, int warnEntities, long warnSnapshotBytes, Counter warnings, Counter clears) {
+        this.mode = mode;
+        this.warnEntities = warnEntities;
+        this.warnSnapshotBytes = warnSnapshotBytes;
+        this.warnings = warnings;
+        this.clears = clears;
+    }
+
+    //배치 구간 - CLEAR 모드에서 checkpoint() 가 영속성 컨텍스트를 비울 수 있다.
+    public <T> T batch(Supplier<T> work) {
+        Boolean outer = batch.get();
+        batch.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                batch.remove();
+            }
+        }
+    }
+
+    //배치 루프에서 한 건 처리할 때마다 부른다. 비웠으면 true
+    public boolean checkpoint(EntityManager em) {
+        State current = state.get();
+        if (current == null || !current.clearRequested || batch.get() == null) {
+            return false;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        if (current.session != session) {
+            return false;
+        }
+        em.flush();
+        em.clear();
+        state.remove();
+        clears.increment();
+        return true;
+    }
+
+    //엔티티가 영속성 컨텍스트에 들어올 때 PersistenceContextGuardListener 가 호출한다.
+    void onManaged(SessionImplementor session) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        State current = state.get();
+        if (current == null || current.session != session) {
+            current = new State(session, FIRST_CHECK);
+            state.set(current);
+            session.addEventListeners(new ResetOnEnd(session));
+        }
+        if (current.clearRequested) {
+            return;
+        }
+        int entities = session.getPersistenceContextInternal().getNumberOfManagedEntities();
+        boolean tooManyEntities = entities >= warnEntities;
+        long snapshotBytes = -1;
+        if (!tooManyEntities && entities >= current.nextSnapshotCheck) {
+            current.nextSnapshotCheck = entities * 2;
+            snapshotBytes = estimateSnapshotBytes(session.getPersistenceContextInternal());
+        }
+        if (!tooManyEntities && snapshotBytes < warnSnapshotBytes) {
+            return;
+        }
+        if (mode == Mode.CLEAR && batch.get() != null) {
+            current.clearRequested = true;
+            return;
+        }
+        if (current.warned) {
+            return;
+        }
+        current.warned = true;
+        if (snapshotBytes < 0) {
+            snapshotBytes = estimateSnapshotBytes(session.getPersistenceContextInternal());
+        }
+        warnings.increment();
+        log.warn("영속성 컨텍스트가 큽니다. entities={}, snapshot≈{}KB - 배치라면 flush/clear 하거나 StatelessSession 을 사용하세요.",
+                entities, snapshotBytes / 1024);
+    }
+
+    //로딩 시점 스냅샷(loadedState) 크기 추정 - 배열 + 참조 + 문자열/숫자 객체 크기만 대략 계산한다.
+    static long estimateSnapshotBytes(PersistenceContext persistenceContext) {
+        long bytes = 0;
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            Object[] loadedState = entry.getValue().getLoadedState();
+            if (loadedState == null) {
+                continue;
+            }
+            bytes += 16 + 4L * loadedState.length;
+            for (Object value : loadedState) {
+                if (value instanceof String) {
+                    bytes += 40 + 2L * ((String) value).length();
+                } else if (value != null) {
+                    bytes += 16;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    //이 스레드의 상태가 끝난 세션 것일 때만 비운다.
+    private void reset(SessionImplementor session) {
+        State current = state.get();
+        if (current != null && current.session == session) {
+            state.remove();
+        }
+    }
+
+    private static class State {
+        private final SessionImplementor session;
+        private int nextSnapshotCheck;
+        private boolean clearRequested;
+        private boolean warned;
+
+        private State(SessionImplementor session, int firstSnapshotCheck) {
+            this.session = session;
+            this.nextSnapshotCheck = firstSnapshotCheck;
+        }
+    }
+
+    private class ResetOnEnd extends BaseSessionEventListener {
+
+        private final SessionImplementor session;
+
+        private ResetOnEnd(SessionImplementor session) {
+            this.session = session;
+        }
+
+        @Override
+        public void transactionCompletion(boolean successful) {
+            reset(session);
+        }
+
+        @Override
+        public void end() {
+            reset(session);
+        }
+    }
+}
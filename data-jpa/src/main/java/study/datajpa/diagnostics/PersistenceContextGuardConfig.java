@@ -0,0 +1,50 @@
+package study.datajpa.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.config.HibernateIntegrators;
+
+//영속성 컨텍스트 크기 감시 설정
+//diagnostics.persistence-context.mode (off / warn / clear), warn-entities, warn-snapshot-bytes
+@Configuration
+public class PersistenceContextGuardConfig {
+
+    @Bean
+    public PersistenceContextGuard persistenceContextGuard(MeterRegistry registry,
+                                                           @Value("${diagnostics.persistence-context.mode:warn}") String mode,
+                                                           @Value("${diagnostics.persistence-context.warn-entities:10000}") int warnEntities,
+                                                           @Value("${diagnostics.persistence-context.warn-snapshot-bytes:67108864}") long warnSnapshotBytes) {
+        return new PersistenceContextGuard(PersistenceContextGuard.Mode.valueOf(mode.toUpperCase()), warnEntities, warnSnapshotBytes,
+                registry.counter("persistence.context.guard.warnings"),
+                registry.counter("persistence.context.guard.clears"));
+    }
+
+    //POST_LOAD / PERSIST 이벤트에 감시 리스너를 붙인다.
+    @Bean
+    public HibernatePropertiesCustomizer persistenceContextGuardIntegrator(PersistenceContextGuard guard) {
+        PersistenceContextGuardListener listener = new PersistenceContextGuardListener(guard);
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_LOAD, listener);
+                registry.appendListeners(EventType.PERSIST, listener);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return HibernateIntegrators.register(integrator);
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.diagnostics;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import java.util.Map;
+
+//엔티티가 로딩되거나 persist 될 때 PersistenceContextGuard 에 알린다.
+//기본 리스너 뒤에 붙으므로 이미 영속성 컨텍스트에 들어간 뒤에 호출된다.
+class PersistenceContextGuardListener implements PostLoadEventListener, PersistEventListener {
+
+    private final PersistenceContextGuard guard;
+
+    PersistenceContextGuardListener(PersistenceContextGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        guard.onManaged(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) throws HibernateException {
+        guard.onManaged(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) throws HibernateException {
+        guard.onManaged(event.getSession());
+    }
+}
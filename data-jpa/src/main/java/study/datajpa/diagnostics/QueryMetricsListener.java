@@ -0,0 +1,107 @@
+package study.datajpa.diagnostics;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//p6spy JDBC 이벤트로 리파지토리 호출 지표를 채운다.
+//slow query 는 바로 SQL 과 바인딩 값을 로그로 남기고, EXPLAIN 은 별도 스레드에서 별도 커넥션으로 실행한다.
+//(실행한 커넥션에서 EXPLAIN 하면 ResultSet 이 열려 있는 중이고, 실패하면 호출한 쪽 트랜잭션이 abort 될 수 있다.)
+//EXPLAIN 이 밀리면 버린다. 커넥션은 DataSource 에서 lazy 하게 꺼낸다. (p6spy 가 감싸는 DataSource 와 순환 참조가 되지 않게)
+@Slf4j
+@Component
+public class QueryMetricsListener extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<Boolean> EXPLAINING = new ThreadLocal<>();
+
+    private final long slowQueryNanos;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    public QueryMetricsListener(@Value("${diagnostics.slow-query.threshold-ms:500}") long slowQueryMillis,
+                                ObjectProvider<DataSource> dataSource) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.dataSource = dataSource;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        RepositoryMetricsContext context = RepositoryMetricsContext.current();
+        if (context != null && context.connectionAcquireNanos < 0) {
+            context.connectionAcquireNanos = connectionInformation.getTimeToGetConnectionNs();
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        RepositoryMetricsContext context = RepositoryMetricsContext.current();
+        if (context != null) {
+            context.statements++;
+        }
+        if (timeElapsedNanos >= slowQueryNanos && EXPLAINING.get() == null) {
+            logSlowQuery(statementInformation, timeElapsedNanos, context);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        RepositoryMetricsContext context = RepositoryMetricsContext.current();
+        if (context != null && hasNext) {
+            context.rows++;
+        }
+    }
+
+    private void logSlowQuery(StatementInformation statementInformation, long timeElapsedNanos,
+                              RepositoryMetricsContext context) {
+        String sql = statementInformation.getSqlWithValues();
+        String caller = context == null ? "-" : context.repository + "." + context.method;
+        log.warn("slow query : {}ms, caller={}, sql={}, values={}",
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos), caller, statementInformation.getSql(), sql);
+        if (sql.trim().regionMatches(true, 0, "select", 0, 6)) {
+            explainExecutor.execute(() -> log.warn("slow query plan : caller={}, plan={}", caller, explain(sql)));
+        }
+    }
+
+    private String explain(String sql) {
+        EXPLAINING.set(Boolean.TRUE);
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("explain " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append(' ');
+            }
+            return plan.toString().trim();
+        } catch (SQLException | RuntimeException ex) {
+            return "explain 실패 : " + ex.getMessage();
+        } finally {
+            EXPLAINING.remove();
+        }
+    }
+}
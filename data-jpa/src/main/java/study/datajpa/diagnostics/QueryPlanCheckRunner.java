@@ -0,0 +1,51 @@
+package study.datajpa.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberSpecs;
+import study.datajpa.repository.TeamSpecs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//기동 시 Specification 조건 조합의 실행 계획 검사
+//diagnostics.plan-check.mode : warn 이면 풀스캔 조합과 제안 인덱스를 로그로 남기고, fail 이면 기동을 중단한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "diagnostics.plan-check.enabled", havingValue = "true")
+public class QueryPlanCheckRunner implements ApplicationRunner {
+
+    private final QueryPlanValidator validator;
+
+    @Value("${diagnostics.plan-check.mode:warn}")
+    private String mode;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<QueryPlanReport> reports = new ArrayList<>();
+        reports.addAll(validator.explainAll(Member.class, MemberSpecs.shapes()));
+        reports.addAll(validator.explainAll(Team.class, TeamSpecs.shapes()));
+
+        List<QueryPlanReport> fullScans = new ArrayList<>();
+        for (QueryPlanReport report : reports) {
+            if (report.isFullScan()) {
+                fullScans.add(report);
+                log.warn("풀스캔 조건 조합 : shape={}, tables={}, 제안 인덱스={}, sql={}",
+                        report.getShape(), report.getFullScanTables(), report.getSuggestedIndexes(), report.getSql());
+            }
+        }
+        log.info("query plan check : shapes={}, fullScan={}", reports.size(), fullScans.size());
+
+        if (!fullScans.isEmpty() && "fail".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("풀스캔하는 조건 조합이 있습니다. " + fullScans.size() + "건");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.diagnostics;
+
+import lombok.Value;
+
+import java.util.List;
+
+//조건 조합(shape) 하나의 실행 계획 검사 결과
+//suggestedIndexes 는 풀스캔한 테이블의 where 절 컬럼으로 만든 @Index 선언 (등호 조건 먼저, 범위 조건 나중)
+@Value
+public class QueryPlanReport {
+
+    String shape;
+    String sql;
+    String plan;
+    List<String> fullScanTables;
+    List<String> suggestedIndexes;
+
+    public boolean isFullScan() {
+        return !fullScanTables.isEmpty();
+    }
+}
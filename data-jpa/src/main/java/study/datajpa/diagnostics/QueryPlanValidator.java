@@ -0,0 +1,144 @@
+package study.datajpa.diagnostics;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Specification 실행 계획 검사
+//Specification 을 Hibernate 가 만드는 SQL 로 바꾼 뒤 EXPLAIN 을 실행해서 풀스캔하는 테이블을 찾는다.
+//값은 모두 바인딩 파라미터라 EXPLAIN 에는 null 을 넣는다. (플랜은 값이 아니라 조건 모양으로 정해진다.)
+//풀스캔 판정은 실행 계획 문자열로 한다. H2 : "tableScan", PostgreSQL : "Seq Scan on"
+@Component
+public class QueryPlanValidator {
+
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("(\\w+)\\.tableScan", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PG_SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_ALIAS = Pattern.compile("(?:from|join)\\s+(\\w+)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONDITION = Pattern.compile(
+            "(\\w+)\\.(\\w+)\\s*(>=|<=|<>|=|>|<|\\blike\\b|\\bin\\b|\\bbetween\\b)", Pattern.CASE_INSENSITIVE);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional(readOnly = true)
+    public <T> QueryPlanReport explain(String shape, Class<T> type, Specification<T> spec) {
+        String sql = toSql(type, spec);
+        String plan = em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int parameters = (int) sql.chars().filter(c -> c == '?').count();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder result = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        result.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return result.toString();
+            }
+        });
+
+        List<String> fullScanTables = fullScanTables(plan);
+        return new QueryPlanReport(shape, sql, plan, fullScanTables, suggestIndexes(sql, fullScanTables));
+    }
+
+    public <T> List<QueryPlanReport> explainAll(Class<T> type, Map<String, Specification<T>> shapes) {
+        List<QueryPlanReport> reports = new ArrayList<>();
+        shapes.forEach((shape, spec) -> reports.add(explain(shape, type, spec)));
+        return reports;
+    }
+
+    //Specification -> Criteria -> JPQL -> SQL (Hibernate 쿼리 플랜 캐시에서 변환)
+    private <T> String toSql(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        String jpql = em.createQuery(query).unwrap(Query.class).getQueryString();
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        return sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings()[0];
+    }
+
+    private static List<String> fullScanTables(String plan) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (Pattern pattern : new Pattern[]{H2_TABLE_SCAN, PG_SEQ_SCAN}) {
+            Matcher matcher = pattern.matcher(plan);
+            while (matcher.find()) {
+                tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(tables);
+    }
+
+    //풀스캔한 테이블마다 where 절에서 그 테이블 별칭으로 쓰인 컬럼을 모아 인덱스를 제안한다.
+    //where 절 컬럼이 없으면 (조인 순서 때문에 스캔한 경우 등) 제안하지 않는다.
+    private static List<String> suggestIndexes(String sql, List<String> fullScanTables) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        int where = lower.indexOf(" where ");
+        if (where < 0 || fullScanTables.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int orderBy = lower.indexOf(" order by ", where);
+        String whereClause = lower.substring(where, orderBy < 0 ? lower.length() : orderBy);
+
+        Map<String, String> tableByAlias = new HashMap<>();
+        Matcher aliases = TABLE_ALIAS.matcher(lower.substring(0, where));
+        while (aliases.find()) {
+            tableByAlias.put(aliases.group(2), aliases.group(1));
+        }
+
+        List<String> suggestions = new ArrayList<>();
+        for (String table : fullScanTables) {
+            Set<String> equalityColumns = new LinkedHashSet<>();
+            Set<String> rangeColumns = new LinkedHashSet<>();
+            Matcher conditions = CONDITION.matcher(whereClause);
+            while (conditions.find()) {
+                if (!table.equals(tableByAlias.get(conditions.group(1)))) {
+                    continue;
+                }
+                String operator = conditions.group(3).trim();
+                if (operator.equals("=") || operator.equals("in")) {
+                    equalityColumns.add(conditions.group(2));
+                } else {
+                    rangeColumns.add(conditions.group(2));
+                }
+            }
+            rangeColumns.removeAll(equalityColumns);
+            List<String> columns = new ArrayList<>(equalityColumns);
+            columns.addAll(rangeColumns);
+            if (!columns.isEmpty()) {
+                suggestions.add(table + ": @Index(name = \"idx_" + table + "_" + String.join("_", columns)
+                        + "\", columnList = \"" + String.join(", ", columns) + "\")");
+            }
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,78 @@
+package study.datajpa.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+//리파지토리 메소드별 쿼리 지표
+//repository.query.latency     : 메소드 실행 시간
+//repository.query.rows        : 읽은 row 수
+//repository.query.statements  : 실행한 JDBC statement 수
+//repository.connection.acquire: 커넥션 획득 시간
+//repository.flush.entities    : flush 시점 영속성 컨텍스트 엔티티 수
+//모두 repository, method 태그가 붙는다.
+//퍼센타일 히스토그램은 management.metrics.distribution.percentiles-histogram.repository 로 켠다.
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    @Around("this(study.datajpa.repository.MemberRepository) || target(study.datajpa.repository.MemberJpaRepository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getThis() instanceof MemberRepository
+                ? MemberRepository.class.getSimpleName()
+                : MemberJpaRepository.class.getSimpleName();
+        RepositoryMetricsContext context = RepositoryMetricsContext.open(repository, joinPoint.getSignature().getName());
+        if (context == null) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            context.close();
+            publish(context, System.nanoTime() - start);
+        }
+    }
+
+    private void publish(RepositoryMetricsContext context, long elapsedNanos) {
+        String[] tags = {"repository", context.repository, "method", context.method};
+
+        Timer.builder("repository.query.latency")
+                .tags(tags)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("repository.query.rows")
+                .tags(tags)
+                .register(registry)
+                .record(context.rows);
+        DistributionSummary.builder("repository.query.statements")
+                .tags(tags)
+                .register(registry)
+                .record(context.statements);
+        if (context.connectionAcquireNanos >= 0) {
+            Timer.builder("repository.connection.acquire")
+                    .tags(tags)
+                    .register(registry)
+                    .record(context.connectionAcquireNanos, TimeUnit.NANOSECONDS);
+        }
+        if (context.flushedEntities >= 0) {
+            DistributionSummary.builder("repository.flush.entities")
+                    .tags(tags)
+                    .register(registry)
+                    .record(context.flushedEntities);
+        }
+    }
+}
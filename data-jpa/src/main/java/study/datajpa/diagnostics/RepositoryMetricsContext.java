@@ -0,0 +1,38 @@
+package study.datajpa.diagnostics;
+
+//리파지토리 메소드 호출 하나 동안 모으는 값
+//RepositoryMetricsAspect 가 호출 시작 시 만들고, JDBC/Hibernate 리스너가 같은 스레드에서 채운다.
+class RepositoryMetricsContext {
+
+    private static final ThreadLocal<RepositoryMetricsContext> CURRENT = new ThreadLocal<>();
+
+    final String repository;
+    final String method;
+    int statements;
+    long rows;
+    long connectionAcquireNanos = -1;
+    int flushedEntities = -1;
+
+    private RepositoryMetricsContext(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+
+    static RepositoryMetricsContext current() {
+        return CURRENT.get();
+    }
+
+    //이미 바깥 호출이 있으면 null (바깥 호출에 합산한다)
+    static RepositoryMetricsContext open(String repository, String method) {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        RepositoryMetricsContext context = new RepositoryMetricsContext(repository, method);
+        CURRENT.set(context);
+        return context;
+    }
+
+    void close() {
+        CURRENT.remove();
+    }
+}
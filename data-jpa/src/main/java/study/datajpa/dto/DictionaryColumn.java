@@ -0,0 +1,66 @@
+package study.datajpa.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//사전(dictionary) 인코딩 문자열 컬럼
+//같은 문자열은 한 번만 저장하고, 행마다 int 코드만 가진다. null 은 코드 -1
+//팀 이름처럼 중복이 많은 컬럼은 행 수와 관계없이 문자열 개수가 팀 수로 고정된다.
+//username 처럼 값이 거의 다른 컬럼에는 쓰지 않는다. (맵과 코드 배열만 더 든다.)
+public class DictionaryColumn {
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codeByValue = new HashMap<>();
+    private int[] codes;
+    private int size;
+
+    DictionaryColumn(int initialCapacity) {
+        this.codes = new int[initialCapacity];
+    }
+
+    void add(String value) {
+        if (size == codes.length) {
+            //trim() 뒤에는 용량이 0 일 수 있다.
+            codes = Arrays.copyOf(codes, Math.max(16, size * 2));
+        }
+        if (codeByValue.isEmpty() && !dictionary.isEmpty()) {
+            //trim() 으로 버린 인코딩용 맵을 다시 만들어서 같은 값이 사전에 두 번 들어가지 않게 한다.
+            for (int code = 0; code < dictionary.size(); code++) {
+                codeByValue.put(dictionary.get(code), code);
+            }
+        }
+        codes[size++] = value == null ? -1 : codeByValue.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    void trim() {
+        codes = Arrays.copyOf(codes, size);
+        codeByValue.clear();
+    }
+
+    public String get(int row) {
+        int code = codes[row];
+        return code < 0 ? null : dictionary.get(code);
+    }
+
+    public int code(int row) {
+        return codes[row];
+    }
+
+    public String value(int code) {
+        return dictionary.get(code);
+    }
+
+    public int cardinality() {
+        return dictionary.size();
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,85 @@
+package study.datajpa.dto;
+
+import java.util.Arrays;
+
+//회원 조회 결과를 컬럼 단위 배열로 담는다. (행 단위 MemberDto 대신)
+//id, age 는 primitive 배열이라 행마다 Long/Integer 박싱이 없고
+//teamName 은 중복이 많아서 사전 인코딩으로 팀 수만큼만 문자열을 가진다.
+//username 은 거의 다 달라서 사전 인코딩을 하면 맵/코드 배열만 늘어나므로 String[] 에 그대로 둔다.
+public class MemberColumns {
+
+    private long[] ids;
+    private int[] ages;
+    private String[] usernames;
+    private final DictionaryColumn teamNames;
+    private int size;
+
+    public MemberColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.ids = new long[capacity];
+        this.ages = new int[capacity];
+        this.usernames = new String[capacity];
+        this.teamNames = new DictionaryColumn(capacity);
+    }
+
+    public void add(long id, int age, String username, String teamName) {
+        if (size == ids.length) {
+            //trim() 뒤에는 용량이 0 일 수 있다.
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+        }
+        ids[size] = id;
+        ages[size] = age;
+        usernames[size] = username;
+        teamNames.add(teamName);
+        size++;
+    }
+
+    //다 채운 뒤 남는 용량을 잘라내고 인코딩용 맵을 버린다.
+    public MemberColumns trim() {
+        ids = Arrays.copyOf(ids, size);
+        ages = Arrays.copyOf(ages, size);
+        usernames = Arrays.copyOf(usernames, size);
+        teamNames.trim();
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    public String username(int row) {
+        return usernames[row];
+    }
+
+    public String teamName(int row) {
+        return teamNames.get(row);
+    }
+
+    //배열을 그대로 넘기므로 호출하는 쪽에서 수정하면 안 된다.
+    public long[] ids() {
+        return ids;
+    }
+
+    public int[] ages() {
+        return ages;
+    }
+
+    public String[] usernames() {
+        return usernames;
+    }
+
+    public DictionaryColumn teamNames() {
+        return teamNames;
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//회원 동적 검색 조건 - null 인 조건은 where 절에 넣지 않는다.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSearchCondition {
+
+    private String username;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+}
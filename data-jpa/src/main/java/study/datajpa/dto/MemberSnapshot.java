@@ -0,0 +1,15 @@
+package study.datajpa.dto;
+
+import lombok.Value;
+
+//username 캐시에 보관하는 불변 회원 값
+//엔티티가 아니라서 여러 스레드가 공유해도 안전하고 지연로딩도 일어나지 않는다.
+@Value
+public class MemberSnapshot {
+
+    Long id;
+    String username;
+    int age;
+    Long teamId;
+    String teamName;
+}
@@ -0,0 +1,13 @@
+package study.datajpa.dto;
+
+//인터페이스 기반 Projection
+//엔티티 대신 필요한 컬럼만 select 하고, 영속성 컨텍스트에 올라가지 않기 때문에
+//스냅샷 생성과 flush 시점 더티체킹이 없다.
+public interface MemberView {
+
+    Long getId();
+
+    String getUsername();
+
+    int getAge();
+}
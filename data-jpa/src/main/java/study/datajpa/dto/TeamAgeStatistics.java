@@ -0,0 +1,67 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+//팀별 나이 통계
+//히스토그램은 나이 오름차순으로 정렬된 ages[] 와 같은 위치의 회원 수 counts[] 두 배열로 둔다. 나머지 값은 히스토그램에서 계산한다.
+//나이는 음수도 될 수 있어서 회원이 없으면 min/max 는 OptionalInt.empty() 로 돌려준다.
+//teamId 가 null 이면 팀이 없는 회원
+@Getter
+@ToString(exclude = {"ages", "counts"})
+public class TeamAgeStatistics {
+
+    private final Long teamId;
+    private final String teamName;
+    private final int[] ages;
+    private final long[] counts;
+    private final long count;
+    private final double avgAge;
+
+    //ages 는 중복 없이 오름차순이어야 한다. 배열은 복사하지 않고 그대로 가진다.
+    public TeamAgeStatistics(Long teamId, String teamName, int[] ages, long[] counts) {
+        if (ages.length != counts.length) {
+            throw new IllegalArgumentException("ages.length=" + ages.length + ", counts.length=" + counts.length);
+        }
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.ages = ages;
+        this.counts = counts;
+
+        long count = 0;
+        double sum = 0;
+        for (int i = 0; i < ages.length; i++) {
+            count += counts[i];
+            sum += (double) ages[i] * counts[i];
+        }
+        this.count = count;
+        this.avgAge = count == 0 ? 0 : sum / count;
+    }
+
+    public OptionalInt getMinAge() {
+        return ages.length == 0 ? OptionalInt.empty() : OptionalInt.of(ages[0]);
+    }
+
+    public OptionalInt getMaxAge() {
+        return ages.length == 0 ? OptionalInt.empty() : OptionalInt.of(ages[ages.length - 1]);
+    }
+
+    //해당 나이 회원 수 (없으면 0)
+    public long countOf(int age) {
+        int index = Arrays.binarySearch(ages, age);
+        return index < 0 ? 0 : counts[index];
+    }
+
+    //히스토그램의 나이 (오름차순, 복사본)
+    public int[] getAges() {
+        return ages.clone();
+    }
+
+    //getAges() 와 같은 위치의 회원 수 (복사본)
+    public long[] getCounts() {
+        return counts.clone();
+    }
+}
@@ -1,29 +1,73 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.data.domain.Persistable;
+import study.datajpa.cache.MemberUsernameCacheListener;
+import study.datajpa.repository.MemberCountListener;
+import study.datajpa.view.MemberChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+//idx_member_username : MemberSpecs.usernameEq 처럼 나이 조건 없이 username 으로만 찾는 조합 (QueryPlanValidator 제안)
+//idx_member_team_id : 팀별 회원 조회 / 팀 인원 수 재계산 (db/migration/V1__init.sql 과 같아야 한다.)
+@Table(indexes = {
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id"),
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"})
 @NamedQuery(
         name="Member.findByUsername",
-        query="select m from Member m where m.username = :username"
+        query="select m from Member m where m.username = :username",
+        hints = {
+                @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+                @QueryHint(name = "org.hibernate.cacheRegion", value = "query.Member.byUsername")
+        }
 )
-public class Member{
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({MemberCountListener.class, MemberUsernameCacheListener.class, MemberChangeListener.class})
+public class Member implements Persistable<Long> {
 
-    @Id @GeneratedValue
+    //pooled 시퀀스 - allocation-size 만큼 ID를 미리 받아와서 insert마다 시퀀스 조회를 하지 않는다.
+    //크기는 설정으로 바꿀 수 있다. (PooledSequenceGenerator 참고)
+    @Id
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.datajpa.entity.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    //낙관적 락 - 동시에 수정하면 나중에 커밋하는 쪽이 OptimisticLockException
+    @Version
+    private Long version;
+
+    //save() 가 persist/merge 를 고를 때 쓰는 플래그
+    //new 로 만든 엔티티만 true 이고, 저장되거나 조회되면 false 가 된다.
+    //덕분에 save() 가 merge 를 위한 사전 SELECT 없이 바로 persist 한다.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "team_id")
+    @JoinColumn(name = "team_id", foreignKey = @ForeignKey(name = "fk_member_team"))
     private Team team;
 
+    //마지막으로 DB 와 맞춰진 username - username 변경 시 이전 캐시 키를 비우는 데 사용
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private String loadedUsername;
+
     public Member(String username) {
         this.username = username;
     }
@@ -41,9 +85,27 @@ public class Member{
         this.age = age;
     }
 
+    //이전 팀의 members 는 건드리지 않는다. (큰 팀이면 컬렉션 전체를 읽어야 해서)
+    //2차 캐시에 남은 이전/새 팀의 members 는 hibernate.cache.auto_evict_collection_cache 로 flush 때 비워진다.
+    //팀 인원 수는 flush 때 TeamMemberCountListener 가 DB 에서 바로 옮긴다.
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
     }
 
+    public void rememberLoadedUsername() {
+        this.loadedUsername = username;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    //StatelessSession 은 콜백을 부르지 않으므로 StatelessSession 으로 저장/조회한 쪽에서 직접 호출한다.
+    @PostPersist
+    @PostLoad
+    public void markNotNew() {
+        this.newEntity = false;
+    }
 }
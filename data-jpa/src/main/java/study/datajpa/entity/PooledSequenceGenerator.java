@@ -0,0 +1,40 @@
+package study.datajpa.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+//allocationSize 를 설정으로 바꿀 수 있는 pooled 시퀀스 생성기
+//@SequenceGenerator 의 allocationSize 는 애노테이션 상수라 환경마다 바꿀 수 없어서 만들었다.
+//
+//spring.jpa.properties.datajpa.id.allocation-size             : 기본값 (없으면 50)
+//spring.jpa.properties.datajpa.id.<시퀀스 이름>.allocation-size : 시퀀스별 값
+//
+//DB 시퀀스의 increment by 와 같아야 한다. ddl-auto 로 만들면 이 값으로 생성되지만,
+//이미 있는 시퀀스는 마이그레이션으로 increment 를 함께 바꿔줘야 ID 가 겹치지 않는다.
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    static final String ALLOCATION_SIZE = "datajpa.id.allocation-size";
+    static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String sequenceName = params.getProperty(SEQUENCE_PARAM);
+
+        Object allocationSize = settings.get("datajpa.id." + sequenceName + ".allocation-size");
+        if (allocationSize == null) {
+            allocationSize = settings.get(ALLOCATION_SIZE);
+        }
+        params.setProperty(INCREMENT_PARAM,
+                allocationSize == null ? String.valueOf(DEFAULT_ALLOCATION_SIZE) : allocationSize.toString());
+        //pooled: 시퀀스 값을 블록의 끝으로 보고, 한 번 조회로 allocationSize 개의 ID를 메모리에서 나눠준다.
+        params.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -1,26 +1,83 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.data.domain.Persistable;
+import study.datajpa.cache.TeamUsernameCacheListener;
+import study.datajpa.view.TeamChangeListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+//idx_team_name : TeamSpecs.nameEq / MemberSpecs.teamNameEq (QueryPlanValidator 제안)
+@Table(indexes = {
+        @Index(name = "idx_team_member_count", columnList = "member_count"),
+        @Index(name = "idx_team_name", columnList = "name")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","name"})
-public class Team {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({TeamChangeListener.class, TeamUsernameCacheListener.class})
+public class Team implements Persistable<Long> {
 
-    @Id @GeneratedValue
+    //pooled 시퀀스 - allocation-size 만큼 ID를 미리 받아와서 insert마다 시퀀스 조회를 하지 않는다.
+    //크기는 설정으로 바꿀 수 있다. (PooledSequenceGenerator 참고)
+    @Id
+    @GeneratedValue(generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.datajpa.entity.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
-    private long id;
+    private Long id;
     private String name;
 
+    //낙관적 락 - 동시에 수정하면 나중에 커밋하는 쪽이 OptimisticLockException
+    @Version
+    private Long version;
+
+    //save() 가 persist/merge 를 고를 때 쓰는 플래그
+    //new 로 만든 엔티티만 true 이고, 저장되거나 조회되면 false 가 된다.
+    //덕분에 save() 가 merge 를 위한 사전 SELECT 없이 바로 persist 한다.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    //회원 추가/이동은 Member.team 으로 저장되므로 members 변경으로 팀 version 을 올리지 않는다.
+    //(올리면 같은 팀에 동시에 회원을 넣을 때 OptimisticLockException 이 난다.)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
+    //팀 인원 수 (비정규화)
+    //members 컬렉션을 초기화하지 않고 팀 크기를 알 수 있도록 Member 저장/삭제/팀 변경 시
+    //TeamMemberCountListener 가 version 없이 update 로 더하고 뺀다.
+    //엔티티 쪽 값은 갱신되지 않으므로 updatable = false 로 팀을 수정할 때 예전 값으로 덮어쓰지 않게 한다.
+    //StatelessSession / 벌크 연산처럼 엔티티 이벤트를 거치지 않는 변경 후에는 reconcileMemberCount() 로 맞춘다.
+    @Column(name = "member_count", nullable = false, updatable = false)
+    private int memberCount;
+
     public Team(String name) {
         this.name = name;
     }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    //StatelessSession 은 콜백을 부르지 않으므로 StatelessSession 으로 저장/조회한 쪽에서 직접 호출한다.
+    @PostPersist
+    @PostLoad
+    public void markNotNew() {
+        this.newEntity = false;
+    }
 }
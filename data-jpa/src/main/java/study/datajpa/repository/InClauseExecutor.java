@@ -0,0 +1,90 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.service.RepositoryConcurrencyLimiter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+//IN 절 분할 조회
+//컬렉션 파라미터가 chunkSize 보다 크면 DB 파라미터 개수 제한을 넘지 않게 나눠서 조회하고 결과를 합친다.
+//(나눈 조각은 hibernate.query.in_clause_parameter_padding 으로 2의 제곱 크기로 맞춰져 SQL 이 재사용된다.)
+//트랜잭션 밖에서 호출하면 조각마다 읽기 전용 트랜잭션을 열어 병렬로 실행하고,
+//조각마다 커넥션을 하나씩 잡으므로 RepositoryConcurrencyLimiter 로 동시에 실행되는 조각 수를 풀 크기 안으로 묶는다.
+//(가상 스레드 executor 라도 큰 컬렉션 하나가 풀을 다 가져가지 않는다.)
+//트랜잭션 안에서 호출하면 같은 영속성 컨텍스트를 써야 하므로 순서대로 실행한다.
+//중복 값은 먼저 제거하기 때문에 값 하나에 여러 row 가 매칭되어도 결과가 중복되지 않는다.
+@Component
+public class InClauseExecutor {
+
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final RepositoryConcurrencyLimiter limiter;
+    private final TransactionTemplate readOnlyTx;
+
+    public InClauseExecutor(@Value("${query.in-clause.chunk-size:1000}") int chunkSize,
+                            ExecutorService repositoryExecutor,
+                            RepositoryConcurrencyLimiter limiter,
+                            PlatformTransactionManager transactionManager) {
+        this.chunkSize = chunkSize;
+        this.executor = repositoryExecutor;
+        this.limiter = limiter;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public <P, R> List<R> query(Collection<P> values, Function<List<P>, List<R>> query) {
+        List<P> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        if (distinct.size() <= chunkSize) {
+            return query.apply(distinct);
+        }
+
+        List<List<P>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + chunkSize)));
+        }
+
+        List<R> result = new ArrayList<>();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<P> chunk : chunks) {
+                result.addAll(query.apply(chunk));
+            }
+            return result;
+        }
+
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>();
+        for (List<P> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> limiter.call(() -> readOnlyTx.execute(status -> query.apply(chunk))), executor));
+        }
+        for (CompletableFuture<List<R>> future : futures) {
+            result.addAll(join(future));
+        }
+        return result;
+    }
+
+    //조각에서 난 예외는 CompletionException 을 벗겨서 순차 실행과 같은 예외로 던진다.
+    private static <R> List<R> join(CompletableFuture<List<R>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.EntityManager;
+
+//대량 insert 공통 처리
+//batchSize 건마다 flush + clear 해서 영속성 컨텍스트에 엔티티가 쌓이지 않게 한다.
+//(hibernate.jdbc.batch_size 와 같은 값을 쓰면 flush 한 번이 JDBC 배치 한 번이 된다.)
+//주의 : clear 하기 때문에 호출 전에 영속 상태였던 엔티티도 모두 준영속이 된다.
+@Slf4j
+class JpaBatchWriter {
+
+    private JpaBatchWriter() {
+    }
+
+    static <T> long persistAll(EntityManager em, Iterable<T> entities, int batchSize) {
+        long start = System.nanoTime();
+        long count = 0;
+
+        for (T entity : entities) {
+            em.persist(entity);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("batch insert : rows={}, elapsed={}ms, rows/sec={}",
+                count, elapsedMillis, count * 1000 / elapsedMillis);
+        return count;
+    }
+}
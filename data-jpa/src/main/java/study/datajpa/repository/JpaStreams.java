@@ -0,0 +1,61 @@
+package study.datajpa.repository;
+
+import org.hibernate.jpa.QueryHints;
+
+import javax.persistence.EntityManager;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//엔티티 스트리밍 조회 공통 처리
+//JDBC fetchSize 만큼씩 읽고, 읽기 전용으로 조회해서 스냅샷을 만들지 않는다.
+//fetchSize 건마다 em.flush() + em.clear() 해서 영속성 컨텍스트에 엔티티가 쌓이지 않게 한다.
+//flush/clear 는 다음 행을 읽기 직전에 하므로, 넘겨받은 엔티티는 처리하는 동안 영속 상태다. (지연로딩, 수정 가능)
+//그 전 엔티티들은 clear 이후 준영속이 되므로 스트림 밖에 모아뒀다가 나중에 쓰면 안 된다.
+//주의 : clear 는 호출한 쪽의 영속성 컨텍스트 전체를 비운다.
+//      스트리밍 전에 같은 트랜잭션에서 바꾼 엔티티는 clear 전에 flush 로 DB 에 반영되지만, 그 뒤로는 준영속이라 더 고쳐도 반영되지 않는다.
+//      스트리밍 도중에 다른 엔티티를 고쳐야 한다면 스트림이 끝난 뒤에 다시 조회해서 고친다.
+class JpaStreams {
+
+    private JpaStreams() {
+    }
+
+    static <T> Stream<T> stream(EntityManager em, String jpql, Class<T> type, int fetchSize) {
+        Stream<T> results = em.createQuery(jpql, type)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+        return StreamSupport.stream(new ClearingSpliterator<>(em, results.spliterator(), fetchSize), false)
+                .onClose(results::close);
+    }
+
+    private static class ClearingSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final EntityManager em;
+        private final Spliterator<T> results;
+        private final int fetchSize;
+        private long count;
+
+        private ClearingSpliterator(EntityManager em, Spliterator<T> results, int fetchSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.em = em;
+            this.results = results;
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (count > 0 && count % fetchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+            if (!results.tryAdvance(action)) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+    }
+}
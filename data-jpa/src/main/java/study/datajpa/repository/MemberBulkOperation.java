@@ -0,0 +1,13 @@
+package study.datajpa.repository;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//엔티티 이벤트를 거치지 않는 벌크 연산 표시
+//메소드가 끝나면 (예외가 나도) 회원 관련 캐시(나이별 회원 수, username 캐시)를 비우고, MemberDto 뷰는 다시 읽게 한다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MemberBulkOperation {
+}
@@ -0,0 +1,27 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import study.datajpa.cache.MemberUsernameCache;
+import study.datajpa.view.MemberChange;
+import study.datajpa.view.MemberChangeFeed;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberBulkOperationAspect {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberUsernameCache memberUsernameCache;
+    private final MemberChangeFeed memberChangeFeed;
+
+    //예외가 나도 비운다. (청크 단위 벌크 연산은 실패 전에 커밋된 청크가 있을 수 있다.)
+    @After("@annotation(study.datajpa.repository.MemberBulkOperation)")
+    public void evict() {
+        memberCountCache.evictAll();
+        memberUsernameCache.invalidateAll();
+        memberChangeFeed.publish(MemberChange.reset());
+    }
+}
@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberColumns;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//분석용 대량 조회
+//엔티티나 DTO 를 만들지 않고 JDBC ResultSet 에서 바로 MemberColumns 배열에 채운다.
+//JPA 트랜잭션 안에서는 같은 커넥션을 쓰지만 flush 는 하지 않으므로, 아직 flush 되지 않은 변경은 보이지 않는다.
+@Repository
+@Transactional(readOnly = true)
+public class MemberColumnarRepository {
+
+    private static final String SELECT = "select m.member_id, m.age, m.username, t.name" +
+            " from member m left join team t on m.team_id = t.team_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public MemberColumnarRepository(JdbcTemplate jdbcTemplate,
+                                    @Value("${query.columnar.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public MemberColumns findAll() {
+        return query(SELECT + " order by m.member_id");
+    }
+
+    public MemberColumns findByAgeBetween(int fromAge, int toAge) {
+        return query(SELECT + " where m.age between ? and ? order by m.member_id", fromAge, toAge);
+    }
+
+    private MemberColumns query(String sql, Object... args) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, this::extract);
+    }
+
+    private MemberColumns extract(ResultSet rs) throws SQLException {
+        MemberColumns columns = new MemberColumns(fetchSize);
+        while (rs.next()) {
+            columns.add(rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getString(4));
+        }
+        return columns.trim();
+    }
+}
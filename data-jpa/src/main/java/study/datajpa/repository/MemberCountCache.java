@@ -0,0 +1,94 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+//나이별 회원 수 캐시
+//페이징 카운트 쿼리가 본문 쿼리보다 비싼 경우가 많아서 나이별 count 를 max-staleness 동안 재사용한다.
+//save / delete 는 MemberCountListener, 벌크 연산은 @MemberBulkOperation 으로 무효화한다.
+//트랜잭션 안에서 무효화하면 커밋/롤백 후에 한 번 더 비워서, 그 사이 다른 스레드가 올린 값도 버린다.
+//쓰기 트랜잭션 안에서 센 값은 커밋 전 변경이 섞여 있으므로 커밋된 뒤에만 캐시에 넣는다. (롤백되면 버린다.)
+@Component
+public class MemberCountCache {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final long maxStalenessNanos;
+    private final ConcurrentMap<Integer, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public MemberCountCache(@Value("${cache.member-count.max-staleness-ms:5000}") long maxStalenessMillis) {
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+    }
+
+    public long countByAge(int age) {
+        long now = System.nanoTime();
+        CachedCount cached = counts.get(age);
+        if (cached != null && now - cached.loadedAt < maxStalenessNanos) {
+            return cached.count;
+        }
+        long count = em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+        CachedCount loaded = new CachedCount(count, now);
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            afterCommit(() -> counts.put(age, loaded));
+        } else {
+            counts.put(age, loaded);
+        }
+        return count;
+    }
+
+    public void evict(int age) {
+        counts.remove(age);
+        afterCompletion(() -> counts.remove(age));
+    }
+
+    public void evictAll() {
+        counts.clear();
+        afterCompletion(counts::clear);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long loadedAt;
+
+        private CachedCount(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//엔티티 이벤트로 나이별 회원 수 캐시를 무효화한다.
+//Hibernate 가 스프링 빈으로 생성하기 때문에 주입받을 수 있다.
+//(EntityManagerFactory 생성 중에 만들어지므로 캐시는 ObjectProvider 로 늦게 가져온다.)
+public class MemberCountListener {
+
+    private final ObjectProvider<MemberCountCache> memberCountCache;
+
+    public MemberCountListener(ObjectProvider<MemberCountCache> memberCountCache) {
+        this.memberCountCache = memberCountCache;
+    }
+
+    @PostPersist
+    @PostRemove
+    public void evictAge(Member member) {
+        memberCountCache.ifAvailable(cache -> cache.evict(member.getAge()));
+    }
+
+    //이전 나이를 알 수 없으므로 전체를 비운다.
+    @PostUpdate
+    public void evictAll(Member member) {
+        memberCountCache.ifAvailable(MemberCountCache::evictAll);
+    }
+}
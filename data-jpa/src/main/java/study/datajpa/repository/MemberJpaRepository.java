@@ -1,25 +1,109 @@
 package study.datajpa.repository;
 
+import org.hibernate.Cache;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import java.lang.management.OperatingSystemMXBean;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
 public class MemberJpaRepository {
 
+    private static final String USERNAME_QUERY_REGION = "query.Member.byUsername";
+    private static final String TEAM_MEMBERS_ROLE = Team.class.getName() + ".members";
+
     @PersistenceContext
     private EntityManager em;
 
+    private final int batchSize;
+    private final MemberCountCache memberCountCache;
+    private final TeamJpaRepository teamJpaRepository;
+
+    public MemberJpaRepository(MemberCountCache memberCountCache, TeamJpaRepository teamJpaRepository,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.memberCountCache = memberCountCache;
+        this.teamJpaRepository = teamJpaRepository;
+        this.batchSize = batchSize;
+    }
+
     public Member save(Member member) {
         em.persist(member);
         return member;
     }
 
+    //대량 insert
+    //batch_size 건마다 flush + clear 하기 때문에 천만 건도 메모리가 일정하게 유지된다.
+    //members는 한 번에 List로 만들지 말고 순회하면서 생성하는 Iterable을 넘기는 것이 좋다.
+    //팀 인원 수는 flush 마다 TeamMemberCountListener 가 반영한다.
+    @Transactional
+    public long saveAllBatched(Iterable<Member> members) {
+        return JpaBatchWriter.persistAll(em, members, batchSize);
+    }
+
+    //StatelessSession 대량 insert
+    //영속성 컨텍스트를 거치지 않아 flush/clear 가 필요 없다.
+    //엔티티 이벤트가 없으므로 팀 인원 수는 회원이 들어간 팀만 마지막에 재계산하고, 캐시는 @MemberBulkOperation 으로 비운다.
+    //update timestamps 도 갱신되지 않아서 username 쿼리 캐시와 회원이 들어간 팀의 Team.members 컬렉션 캐시는 직접 비운다.
+    //(새로 insert 한 회원 id 는 2차 캐시에 있을 수 없으므로 엔티티 리전은 건드리지 않는다.)
+    //저장한 회원은 isNew() 가 false 가 되므로 그대로 save() 에 넘기면 merge 된다.
+    @Transactional
+    @MemberBulkOperation
+    public long saveAllStateless(Iterable<Member> members) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Set<Long> teamIds = new HashSet<>();
+        long count = StatelessSessions.inCurrentTransaction(em, session -> {
+            long inserted = 0;
+            for (Member member : members) {
+                session.insert(member);
+                member.markNotNew();
+                Object teamId = member.getTeam() == null ? null : util.getIdentifier(member.getTeam());
+                if (teamId != null) {
+                    teamIds.add((Long) teamId);
+                }
+                inserted++;
+            }
+            return inserted;
+        });
+        teamJpaRepository.reconcileMemberCount(teamIds);
+        evictSecondLevel(teamIds);
+        return count;
+    }
+
+    //커밋 전에 다른 트랜잭션이 예전 결과를 다시 캐시할 수 있으므로 트랜잭션이 끝난 뒤에 한 번 더 비운다.
+    private void evictSecondLevel(Set<Long> teamIds) {
+        Cache cache = em.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        Runnable evict = () -> {
+            for (Long teamId : teamIds) {
+                cache.evictCollectionData(TEAM_MEMBERS_ROLE, teamId);
+            }
+            cache.evictQueryRegion(USERNAME_QUERY_REGION);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
     public void delete(Member member) {
         em.remove(member);
     }
@@ -29,6 +113,39 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    //스트리밍 조회 - findAll()과 달리 전체를 List로 올리지 않는다.
+    //트랜잭션 안에서 사용하고, 사용 후 반드시 close 해야 한다.
+    public Stream<Member> streamAll(int fetchSize) {
+        return JpaStreams.stream(em, "select m from Member m left join fetch m.team", Member.class, fetchSize);
+    }
+
+    //StatelessSession 전체 조회 - 회원을 하나씩 넘기고 바로 버린다. (영속성 컨텍스트에 쌓이지 않는다.)
+    //넘겨받은 회원은 준영속이고, 팀도 행마다 새 객체라 같은 팀이어도 == 비교가 되지 않는다.
+    //@PostLoad 가 불리지 않으므로 회원/팀을 직접 isNew() == false 로 만든다. (save() 에 넘기면 merge 된다.)
+    @Transactional(readOnly = true)
+    public long forEachStateless(int fetchSize, Consumer<Member> action) {
+        return StatelessSessions.inCurrentTransaction(em, session -> {
+            ScrollableResults results = session.createQuery("select m from Member m left join fetch m.team", Member.class)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                long count = 0;
+                while (results.next()) {
+                    Member member = (Member) results.get(0);
+                    member.markNotNew();
+                    if (member.getTeam() != null) {
+                        member.getTeam().markNotNew();
+                    }
+                    action.accept(member);
+                    count++;
+                }
+                return count;
+            } finally {
+                results.close();
+            }
+        });
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -69,16 +186,22 @@ public class MemberJpaRepository {
                         .getResultList();
     }
 
+    //순수 JPA 키셋(커서) 페이징
+    //offset 대신 마지막으로 읽은 (username, id)를 커서로 넘겨 다음 페이지를 조회한다.
+    //cursor가 null이면 첫 페이지
+    public List<Member> findByPageAfter(int age, String cursor, int limit) {
+        return MemberKeysetQuery.findByAge(em, age, MemberCursor.decode(cursor), limit);
+    }
+
+    //나이별 count 는 MemberCountCache 에서 max-staleness 동안 재사용한다.
     public long totalCont(int age){
-        return
-                em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
-                        .setParameter("age", age)
-                        .getSingleResult();
+        return memberCountCache.countByAge(age);
     }
 
     //벌크성 쿼리
+    @MemberBulkOperation
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update versioned Member m set m.age = m.age + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
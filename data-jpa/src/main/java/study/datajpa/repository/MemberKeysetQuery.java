@@ -0,0 +1,36 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+//키셋 페이징 쿼리
+//offset 방식은 앞 페이지 row를 모두 읽고 버리지만, 키셋 방식은 마지막 (username, id) 이후부터
+//인덱스(idx_member_age_username_id)를 타고 바로 읽기 때문에 페이지가 깊어져도 비용이 같다.
+class MemberKeysetQuery {
+
+    private MemberKeysetQuery() {
+    }
+
+    static List<Member> findByAge(EntityManager em, int age, MemberCursor cursor, int limit) {
+        TypedQuery<Member> query;
+        if (cursor == null) {
+            query = em.createQuery("select m from Member m" +
+                    " where m.age = :age" +
+                    " order by m.username desc, m.id desc", Member.class);
+        } else {
+            query = em.createQuery("select m from Member m" +
+                    " where m.age = :age" +
+                    " and (m.username < :username or (m.username = :username and m.id < :id))" +
+                    " order by m.username desc, m.id desc", Member.class)
+                    .setParameter("username", cursor.getUsername())
+                    .setParameter("id", cursor.getId());
+        }
+        return query
+                .setParameter("age", age)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
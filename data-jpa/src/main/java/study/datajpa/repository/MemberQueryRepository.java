@@ -0,0 +1,50 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+
+import java.util.Collection;
+import java.util.List;
+
+//조회 전용 리파지토리
+//MemberRepository 의 조회 메소드를 엔티티 대신 Projection/DTO 로 반환한다.
+//기본이 읽기 전용 트랜잭션이라 flush 가 일어나지 않고, 엔티티 스냅샷도 만들지 않는다.
+@Transactional(readOnly = true)
+public interface MemberQueryRepository extends Repository<Member, Long> {
+
+    //쿼리 메소드 + 인터페이스 Projection
+    //select 절에 id, username, age 만 들어간다.
+    List<MemberView> findViewByUsername(String username);
+
+    List<MemberView> findViewByUsernameAndAgeGreaterThan(String username, int age);
+
+    Page<MemberView> findViewByAge(int age, Pageable pageable);
+
+    //@Query + 인터페이스 Projection
+    //alias 이름을 Projection 의 getter 와 맞춰야 한다.
+    @Query("select m.id as id, m.username as username, m.age as age from Member m where m.username in :names")
+    List<MemberView> findViewByName(@Param("names") Collection<String> names);
+
+    //@Query + DTO (팀 이름까지 필요한 경우)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+            " from Member m left join m.team t where m.username = :username")
+    List<MemberDto> findDtoByUsername(@Param("username") String username);
+
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+            " from Member m left join m.team t where m.age = :age",
+            countQuery = "select count(m) from Member m where m.age = :age")
+    Page<MemberDto> findDtoByAge(@Param("age") int age, Pageable pageable);
+
+    //username 캐시 적재용
+    @Query("select new study.datajpa.dto.MemberSnapshot(m.id, m.username, m.age, t.id, t.name)" +
+            " from Member m left join m.team t where m.username = :username")
+    List<MemberSnapshot> findSnapshotByUsername(@Param("username") String username);
+}
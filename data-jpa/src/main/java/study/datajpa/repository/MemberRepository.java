@@ -1,17 +1,17 @@
 package study.datajpa.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.QueryHint;
-import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
+//동적 조건은 JpaSpecificationExecutor + MemberSpecs 로 조합한다.
+public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member>, MemberRepositoryCustom {
 
     //쿼리 메소드 기능
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
@@ -36,25 +36,30 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    //파라미터 바인딩 - 컬렉션
-    //IN절에 사용
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByName(@Param("names") Collection<String> name);
+    //스트리밍 조회 - 전체를 List로 올리지 않고 fetchSize 단위로 DB에서 읽어온다.
+    //DTO는 영속성 컨텍스트에 올라가지 않기 때문에 건수와 상관없이 메모리가 일정하다.
+    //트랜잭션 안에서 사용하고, 사용 후 반드시 close 해야 한다. (try-with-resources)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
 
-    //페이징 처리
-    Page<Member> findByAge(int age, Pageable pageable);
+    //파라미터 바인딩 - 컬렉션 (IN 절) 은 큰 컬렉션을 나눠서 조회하기 위해 MemberRepositoryCustom.findByName 에 있다.
 
-    //페이징 처리 - 카운트 쿼리 지정 가능(조인을 없애 성능을 높임)
-    @Query(value = "select m from Member m left join m.team t",
-            countQuery = "select count(m) from Member m")
-    Page<Member> findByAge_count(int age, Pageable pageable);
+    //페이징 처리 - findByAge / findByAge_count 는 카운트 생략/캐시를 위해 MemberRepositoryCustom 에 있다.
 
     //벌크 처리
     //벌크성 쿼리는 영속성 컨텍스트를 거치지 않고 바로 DB로 가기 때문에 실행 후
     //영속성 컨텍스트를 날려줘야 한다.
     //@Modyfing(clearAutomatically = true) 설정하면 자동 clear
+    //@Transactional 을 붙여서 읽기/쓰기 라우팅 시 항상 primary 로 가게 한다.
+    @Transactional
+    @MemberBulkOperation
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    //versioned - 벌크 update 도 version 을 올려서 낙관적 락과 충돌을 감지한다.
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     //지연로딩 - N+1 문제 해결을 위한 페치조인 처리
@@ -71,6 +76,12 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     //Hint
     //값을 업데이트 하면 더티체킹이 일어나는데, 변경하지 않을 메소드일 경우 Hint를 선언해서
     //불필요한 더티체킹을 없앨 수 있다.
-    @QueryHints(value = @QueryHint(name="org.hibernate.readOnly", value="true"))
+    //username 조회는 쿼리 캐시(query.Member.byUsername)에 올린다.
+    //벌크 update 시 Hibernate가 Member 리전과 쿼리 캐시를 함께 무효화한다.
+    @QueryHints(value = {
+            @QueryHint(name="org.hibernate.readOnly", value="true"),
+            @QueryHint(name="org.hibernate.cacheable", value="true"),
+            @QueryHint(name="org.hibernate.cacheRegion", value="query.Member.byUsername")
+    })
     Member findReadOnlyByUsername(String username);
 }
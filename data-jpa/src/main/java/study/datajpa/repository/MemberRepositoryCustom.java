@@ -1,9 +1,34 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    //키셋(커서) 페이징 - username desc, id desc 정렬
+    //카운트 쿼리 없이 size + 1건을 조회해서 다음 페이지 여부만 판단한다.
+    Slice<Member> findByAgeAfter(int age, String cursor, int size);
+
+    //페이징 처리 - 카운트 쿼리 생략/캐시
+    //첫 페이지가 pageSize 보다 적게 나오면 카운트 쿼리를 생략하고,
+    //그 외에는 MemberCountCache 의 나이별 count 를 재사용한다.
+    Page<Member> findByAge(int age, Pageable pageable);
+
+    //페이징 처리 - 본문은 팀과 조인하고, 카운트는 조인 없이 나이별 캐시를 쓴다.
+    Page<Member> findByAge_count(int age, Pageable pageable);
+
+    //파라미터 바인딩 - 컬렉션
+    //IN절에 사용, 컬렉션이 크면 InClauseExecutor 로 나눠서 조회한다.
+    List<Member> findByName(Collection<String> names);
+
+    //스트리밍 조회 - 팀은 페치조인, fetchSize 건마다 영속성 컨텍스트를 비운다.
+    //트랜잭션 안에서 사용하고, 사용 후 반드시 close 해야 한다.
+    Stream<Member> streamMemberCustom(int fetchSize);
 }
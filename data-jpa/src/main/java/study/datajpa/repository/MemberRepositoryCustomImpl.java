@@ -1,19 +1,82 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final MemberCountCache memberCountCache;
+    private final InClauseExecutor inClauseExecutor;
+
+    public MemberRepositoryCustomImpl(MemberCountCache memberCountCache, InClauseExecutor inClauseExecutor) {
+        this.memberCountCache = memberCountCache;
+        this.inClauseExecutor = inClauseExecutor;
+    }
+
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public Slice<Member> findByAgeAfter(int age, String cursor, int size) {
+        List<Member> content = MemberKeysetQuery.findByAge(em, age, MemberCursor.decode(cursor), size + 1);
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        Sort sort = Sort.by(Sort.Direction.DESC, "username", "id");
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), hasNext);
+    }
+
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        return findPageByAge("select m from Member m where m.age = :age", age, pageable);
+    }
+
+    @Override
+    public Page<Member> findByAge_count(int age, Pageable pageable) {
+        return findPageByAge("select m from Member m left join m.team t where m.age = :age", age, pageable);
+    }
+
+    private Page<Member> findPageByAge(String query, int age, Pageable pageable) {
+        String jpql = QueryUtils.applySorting(query, pageable.getSort(), "m");
+        List<Member> content = em.createQuery(jpql, Member.class)
+                .setParameter("age", age)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCountCache.countByAge(age));
+    }
+
+    @Override
+    public List<Member> findByName(Collection<String> names) {
+        return inClauseExecutor.query(names, chunk ->
+                em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList());
+    }
+
+    @Override
+    public Stream<Member> streamMemberCustom(int fetchSize) {
+        return JpaStreams.stream(em, "select m from Member m left join fetch m.team", Member.class, fetchSize);
+    }
 }
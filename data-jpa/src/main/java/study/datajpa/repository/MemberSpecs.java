@@ -0,0 +1,81 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Member_;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.Team_;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//회원 동적 조건 (Specification)
+//조건 조합마다 쿼리 메소드를 추가하지 않고 MemberRepository.findAll(spec, pageable) 로 조합한다.
+//속성 이름은 빌드 시 생성되는 정적 메타모델(Member_, Team_)을 써서 오타가 컴파일 에러가 되게 한다.
+//search() 는 항상 같은 순서로 조건을 붙이고 값은 바인딩 파라미터로 넘기기 때문에 (literal_handling_mode: bind)
+//같은 조건 조합이면 값이 달라도 SQL 이 같아서 쿼리 플랜 캐시와 statement 캐시를 재사용한다.
+public class MemberSpecs {
+
+    private MemberSpecs() {
+    }
+
+    public static Specification<Member> usernameEq(String username) {
+        return (root, query, cb) -> cb.equal(root.get(Member_.username), username);
+    }
+
+    public static Specification<Member> ageGoe(int age) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(Member_.age), age);
+    }
+
+    public static Specification<Member> ageLoe(int age) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(Member_.age), age);
+    }
+
+    public static Specification<Member> teamNameEq(String teamName) {
+        return (root, query, cb) -> {
+            Join<Member, Team> team = root.join(Member_.team, JoinType.INNER);
+            return cb.equal(team.get(Team_.name), teamName);
+        };
+    }
+
+    public static Specification<Member> search(MemberSearchCondition condition) {
+        Specification<Member> spec = Specification.where(null);
+        if (condition.getUsername() != null) {
+            spec = spec.and(usernameEq(condition.getUsername()));
+        }
+        if (condition.getAgeGoe() != null) {
+            spec = spec.and(ageGoe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            spec = spec.and(ageLoe(condition.getAgeLoe()));
+        }
+        if (condition.getTeamName() != null) {
+            spec = spec.and(teamNameEq(condition.getTeamName()));
+        }
+        return spec;
+    }
+
+    //search() 가 만들 수 있는 조건 조합 전체 (조건 없음 제외) - 실행 계획 검사용
+    public static Map<String, Specification<Member>> shapes() {
+        String[] names = {"username", "ageGoe", "ageLoe", "teamName"};
+        Map<String, Specification<Member>> shapes = new LinkedHashMap<>();
+        for (int mask = 1; mask < 1 << names.length; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition(
+                    (mask & 1) != 0 ? "" : null,
+                    (mask & 2) != 0 ? 0 : null,
+                    (mask & 4) != 0 ? 0 : null,
+                    (mask & 8) != 0 ? "" : null);
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < names.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    name.append(name.length() == 0 ? "" : "+").append(names[i]);
+                }
+            }
+            shapes.put(name.toString(), search(condition));
+        }
+        return shapes;
+    }
+}
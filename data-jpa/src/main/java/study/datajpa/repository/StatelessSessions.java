@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+
+import javax.persistence.EntityManager;
+import java.util.function.Function;
+
+//현재 트랜잭션의 커넥션으로 StatelessSession 을 열어서 작업한다.
+//StatelessSession 은 영속성 컨텍스트/스냅샷/더티체킹/2차 캐시/엔티티 리스너가 없어서 대량 처리에 메모리가 일정하다.
+//같은 커넥션을 쓰기 때문에 커밋/롤백은 스프링 트랜잭션을 따른다.
+//주의 : 엔티티 콜백(@PrePersist 등)과 리스너가 호출되지 않으므로 팀 인원 수, 캐시 무효화는 호출하는 쪽에서 처리한다.
+class StatelessSessions {
+
+    private StatelessSessions() {
+    }
+
+    static <T> T inCurrentTransaction(EntityManager em, Function<StatelessSession, T> work) {
+        Session session = em.unwrap(Session.class);
+        //아직 flush 되지 않은 변경(예: 같은 트랜잭션에서 저장한 팀)을 먼저 DB 에 반영한다.
+        session.flush();
+        return session.doReturningWork(connection -> {
+            StatelessSession stateless = session.getSessionFactory().openStatelessSession(connection);
+            try {
+                return work.apply(stateless);
+            } finally {
+                stateless.close();
+            }
+        });
+    }
+}
@@ -1,10 +1,17 @@
 package study.datajpa.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +21,28 @@ public class TeamJpaRepository {
     @PersistenceContext
     private EntityManager em;
 
+    private final int batchSize;
+    private final InClauseExecutor inClauseExecutor;
+
+    public TeamJpaRepository(InClauseExecutor inClauseExecutor,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.inClauseExecutor = inClauseExecutor;
+        this.batchSize = batchSize;
+    }
+
     public Team save(Team team) {
         em.persist(team);
         return team;
     }
 
+    //대량 insert
+    //batch_size 건마다 flush + clear 하기 때문에 천만 건도 메모리가 일정하게 유지된다.
+    //teams는 한 번에 List로 만들지 말고 순회하면서 생성하는 Iterable을 넘기는 것이 좋다.
+    @Transactional
+    public long saveAllBatched(Iterable<Team> teams) {
+        return JpaBatchWriter.persistAll(em, teams, batchSize);
+    }
+
     public void delete(Team team) {
         em.remove(team);
     }
@@ -29,6 +53,45 @@ public class TeamJpaRepository {
                 .getResultList();
     }
 
+    //팀 크기 순 조회
+    public List<Team> findAllOrderByMemberCount(int offset, int limit) {
+        return em.createQuery("select t from Team t order by t.memberCount desc, t.id", Team.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    //팀 인원 수 재계산
+    //StatelessSession 처럼 엔티티 이벤트를 거치지 않은 변경 후에 바뀐 팀만 다시 센다.
+    //version 은 올리지 않고, 영속성 컨텍스트에 올라와 있던 팀은 다시 읽어서 새 인원 수를 보게 한다.
+    //Team 리전 전체가 비워지지 않도록 네이티브 update 로 바꾸고 바뀐 팀만 2차 캐시에서 비운다. (TeamMemberCountListener 와 같은 방식)
+    @Transactional
+    public int reconcileMemberCount(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+        int updated = inClauseExecutor.query(teamIds, chunk -> Collections.singletonList(
+                        em.createNativeQuery("update team t set member_count =" +
+                                        " (select count(*) from member m where m.team_id = t.team_id)" +
+                                        " where t.team_id in (:teamIds)")
+                                .setParameter("teamIds", chunk)
+                                .unwrap(NativeQuery.class)
+                                .addSynchronizedQuerySpace(TeamMemberCountListener.MEMBER_COUNT_QUERY_SPACE)
+                                .executeUpdate()))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        TeamMemberCountListener.evictTeams(em.unwrap(SessionImplementor.class), teamIds);
+        for (Long teamId : teamIds) {
+            Team team = em.getReference(Team.class, teamId);
+            if (Hibernate.isInitialized(team)) {
+                em.refresh(team);
+            }
+        }
+        return updated;
+    }
+
     public Optional<Team> findById(Long id) {
         Team team = em.find(Team.class, id);
         return Optional.ofNullable(team);
@@ -0,0 +1,40 @@
+package study.datajpa.repository;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.config.HibernateIntegrators;
+
+//팀 인원 수 리스너 등록
+//insert/delete/update 후 이벤트로 증감을 모으고, flush 이벤트에서 반영한다. (기본 리스너 뒤에 붙인다.)
+@Configuration
+public class TeamMemberCountConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer teamMemberCountIntegrator() {
+        TeamMemberCountListener listener = new TeamMemberCountListener();
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_INSERT, listener);
+                registry.appendListeners(EventType.POST_DELETE, listener);
+                registry.appendListeners(EventType.POST_UPDATE, listener);
+                registry.appendListeners(EventType.FLUSH, listener);
+                registry.appendListeners(EventType.AUTO_FLUSH, listener);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return HibernateIntegrators.register(integrator);
+    }
+}
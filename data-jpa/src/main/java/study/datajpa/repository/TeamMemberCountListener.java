@@ -0,0 +1,143 @@
+package study.datajpa.repository;
+
+import org.hibernate.Cache;
+import org.hibernate.FlushMode;
+import org.hibernate.HibernateException;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.internal.ForeignKeys;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+//팀 인원 수(Team.memberCount) 유지
+//회원 insert / delete / 팀 변경을 세션별로 팀마다 모아 두었다가 flush 가 끝나면 팀마다 update 한 번으로 더한다.
+//  update team set member_count = member_count + ? where team_id = ?
+//JPQL 벌크 update 는 Team 2차 캐시 리전 전체를 비우므로 (BulkOperationCleanupAction) 네이티브 update 에
+//캐시 리전과 겹치지 않는 query space 를 지정하고, 바뀐 팀만 2차 캐시에서 비운다. (커밋 후에 한 번 더)
+//Team 엔티티를 고치지 않으므로 팀 version 이 올라가지 않고, 같은 팀에 동시에 insert 해도 OptimisticLockException 이 나지 않는다.
+//flush 도중에는 쿼리를 실행할 수 없어서 (JDBC 배치도 끊긴다) 기본 flush 리스너 뒤에서 반영한다.
+//주의 : 영속성 컨텍스트에 있는 Team 의 memberCount 는 갱신되지 않는다. 최신 값은 다시 조회해서 읽는다.
+class TeamMemberCountListener implements PostInsertEventListener, PostDeleteEventListener, PostUpdateEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    private static final String TEAM = "team";
+    //네이티브 update 의 동기화 대상 - 어떤 캐시 리전과도 겹치지 않게 한다.
+    static final String MEMBER_COUNT_QUERY_SPACE = "team_member_count";
+
+    private final Map<EventSource, Map<Long, Integer>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getState(), event.getSession()), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getDeletedState(), event.getSession()), -1);
+        }
+    }
+
+    //준영속 엔티티를 update() 로 다시 붙인 경우처럼 이전 상태를 모르면 반영하지 않는다. (reconcileMemberCount 로 맞춘다.)
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+            return;
+        }
+        Long before = teamId(event.getPersister(), event.getOldState(), event.getSession());
+        Long after = teamId(event.getPersister(), event.getState(), event.getSession());
+        if (!Objects.equals(before, after)) {
+            add(event.getSession(), before, -1);
+            add(event.getSession(), after, 1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) throws HibernateException {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) throws HibernateException {
+        apply(event.getSession());
+    }
+
+    private void add(EventSource session, Long teamId, int delta) {
+        if (teamId == null) {
+            return;
+        }
+        //flush 전에 롤백되면 반영할 것이 없으므로 트랜잭션이 끝날 때 버린다.
+        pending.computeIfAbsent(session, s -> {
+            s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pending.remove(s));
+            return new HashMap<>();
+        }).merge(teamId, delta, Integer::sum);
+    }
+
+    //쿼리 자체가 다시 auto flush 를 부르지 않도록 MANUAL 로 실행한다.
+    private void apply(EventSource session) {
+        Map<Long, Integer> deltas = pending.remove(session);
+        if (deltas == null) {
+            return;
+        }
+        List<Long> changed = new ArrayList<>();
+        deltas.forEach((teamId, delta) -> {
+            if (delta != 0) {
+                session.createNativeQuery("update team set member_count = member_count + :delta where team_id = :teamId")
+                        .setParameter("delta", delta)
+                        .setParameter("teamId", teamId)
+                        .addSynchronizedQuerySpace(MEMBER_COUNT_QUERY_SPACE)
+                        .setHibernateFlushMode(FlushMode.MANUAL)
+                        .executeUpdate();
+                changed.add(teamId);
+            }
+        });
+        evictTeams(session, changed);
+    }
+
+    //바뀐 팀만 2차 캐시에서 비운다. 커밋 전에 다른 트랜잭션이 예전 값을 다시 올릴 수 있으므로 트랜잭션이 끝난 뒤에 한 번 더 비운다.
+    static void evictTeams(SessionImplementor session, Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        Cache cache = session.getFactory().getCache();
+        List<Long> ids = new ArrayList<>(teamIds);
+        ids.forEach(teamId -> cache.evictEntityData(Team.class, teamId));
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                ids.forEach(teamId -> cache.evictEntityData(Team.class, teamId)));
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state, EventSource session) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex(TEAM)];
+        if (team == null) {
+            return null;
+        }
+        return (Long) ForeignKeys.getEntityIdentifierIfNotUnsaved(Team.class.getName(), team, session);
+    }
+}
@@ -1,7 +1,24 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
 
-public interface TeamRepository extends JpaRepository<Team, Long> {
+public interface TeamRepository extends JpaRepository<Team, Long>, JpaSpecificationExecutor<Team> {
+
+    //팀 크기 순 조회 - member 테이블을 읽지 않고 member_count 인덱스로 정렬한다.
+    Page<Team> findAllByOrderByMemberCountDesc(Pageable pageable);
+
+    //팀 인원 수 전체 재계산
+    //벌크 insert/update 처럼 엔티티 이벤트를 거치지 않은 변경 후에 호출한다. 팀 전체를 세므로 운영 중에는 드물게 쓴다.
+    //인원 수는 version 을 올리지 않는 값이라 다른 팀 수정과 충돌하지 않는다.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Team t set t.memberCount = (select count(m) from Member m where m.team = t)")
+    int reconcileMemberCount();
 }
@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.Team_;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//팀 동적 조건 (Specification)
+public class TeamSpecs {
+
+    private TeamSpecs() {
+    }
+
+    public static Specification<Team> nameEq(String name) {
+        return (root, query, cb) -> cb.equal(root.get(Team_.name), name);
+    }
+
+    public static Specification<Team> memberCountGoe(int memberCount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(Team_.memberCount), memberCount);
+    }
+
+    //실행 계획 검사용
+    public static Map<String, Specification<Team>> shapes() {
+        Map<String, Specification<Team>> shapes = new LinkedHashMap<>();
+        shapes.put("name", nameEq(""));
+        shapes.put("memberCountGoe", memberCountGoe(0));
+        return shapes;
+    }
+}
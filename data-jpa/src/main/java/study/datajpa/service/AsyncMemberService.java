@@ -0,0 +1,86 @@
+package study.datajpa.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.cache.MemberUsernameCache;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.dto.MemberView;
+import study.datajpa.repository.MemberQueryRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//주요 조회 메소드의 CompletableFuture 버전
+//repositoryExecutor (가상 스레드) 에서 읽기 전용 트랜잭션으로 실행하고, 동시 실행 수는 RepositoryConcurrencyLimiter 로 제한한다.
+//엔티티는 트랜잭션 밖으로 나가면 지연로딩을 할 수 없기 때문에 DTO/Projection 으로 반환한다.
+//username 조회는 MemberUsernameCache 를 거친다. 캐시에 있으면 executor 를 거치지 않고 바로 돌려준다.
+@Service
+public class AsyncMemberService {
+
+    private final MemberRepository memberRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberUsernameCache memberUsernameCache;
+    private final RepositoryConcurrencyLimiter limiter;
+    private final ExecutorService repositoryExecutor;
+    private final TransactionTemplate readOnlyTx;
+
+    public AsyncMemberService(MemberRepository memberRepository,
+                              MemberQueryRepository memberQueryRepository,
+                              MemberUsernameCache memberUsernameCache,
+                              RepositoryConcurrencyLimiter limiter,
+                              ExecutorService repositoryExecutor,
+                              PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.memberQueryRepository = memberQueryRepository;
+        this.memberUsernameCache = memberUsernameCache;
+        this.limiter = limiter;
+        this.repositoryExecutor = repositoryExecutor;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public CompletableFuture<Optional<MemberDto>> findById(Long id) {
+        return submit(() -> memberRepository.findById(id)
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeam() == null ? null : m.getTeam().getName())));
+    }
+
+    public CompletableFuture<List<MemberDto>> findByUsername(String username) {
+        List<MemberSnapshot> cached = memberUsernameCache.getIfPresent(username);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(toDto(cached));
+        }
+        return submit(() -> toDto(memberUsernameCache.findByUsername(username)));
+    }
+
+    public CompletableFuture<List<MemberView>> findByUsernameAndAgeGreaterThan(String username, int age) {
+        return submit(() -> memberQueryRepository.findViewByUsernameAndAgeGreaterThan(username, age));
+    }
+
+    public CompletableFuture<Page<MemberDto>> findByAge(int age, Pageable pageable) {
+        return submit(() -> memberQueryRepository.findDtoByAge(age, pageable));
+    }
+
+    public CompletableFuture<List<MemberDto>> findMemberDto() {
+        return submit(memberRepository::findMemberDto);
+    }
+
+    private static List<MemberDto> toDto(List<MemberSnapshot> members) {
+        return members.stream()
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeamName()))
+                .collect(Collectors.toList());
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> limiter.call(() -> readOnlyTx.execute(status -> query.get())),
+                repositoryExecutor);
+    }
+}
@@ -0,0 +1,224 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberBulkOperation;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//청크 단위 벌크 update
+//bulkAgePlus 처럼 update 한 번으로 전체를 바꾸면 트랜잭션이 길어지고 row 락을 오래 잡는다.
+//member_id 범위를 chunkSize 단위로 나눠서 청크마다 별도 트랜잭션으로 커밋하고,
+//parallelism 개 스레드로 청크를 동시에 실행한다.
+//영속성 컨텍스트/2차 캐시는 전체 clear 대신 바뀐 회원만 비운다.
+//2차 캐시는 청크가 커밋될 때마다 비우기 때문에 중간 청크가 실패해도 이미 커밋된 청크는 캐시에 남지 않는다.
+//(회원 수 / username 캐시는 @MemberBulkOperation 이 예외가 나도 비운다.)
+@Slf4j
+@Service
+public class MemberBulkUpdater {
+
+    //네이티브 update 의 동기화 대상 - 어떤 캐시 리전과도 겹치지 않게 해서 Hibernate 가 Member 리전 전체를 비우지 않게 한다.
+    private static final String CHUNK_QUERY_SPACE = "member_bulk_chunk";
+    private static final String USERNAME_QUERY_REGION = "query.Member.byUsername";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate chunkTx;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    public MemberBulkUpdater(PlatformTransactionManager transactionManager,
+                             @Value("${bulk.member.chunk-size:1000}") int chunkSize,
+                             @Value("${bulk.member.parallelism:4}") int parallelism) {
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //진행 상황 콜백 - 청크 하나가 커밋될 때마다 호출된다.
+    public interface Progress {
+        void onChunk(int completedChunks, int totalChunks, long updatedRows);
+    }
+
+    //bulkAgePlus 의 청크 버전
+    @MemberBulkOperation
+    public long agePlus(int age, boolean parallel, Progress progress) {
+        Object[] range = em.createQuery(
+                        "select min(m.id), max(m.id) from Member m where m.age >= :age", Object[].class)
+                .setParameter("age", age)
+                .getSingleResult();
+        if (range[0] == null) {
+            return 0;
+        }
+
+        List<long[]> chunks = split((Long) range[0], (Long) range[1]);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong updated = new AtomicLong();
+        Set<Long> changedIds = Collections.synchronizedSet(new HashSet<>());
+        long start = System.currentTimeMillis();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (long[] chunk : chunks) {
+            tasks.add(() -> {
+                List<Long> ids = chunkTx.execute(status -> agePlusChunk(age, chunk[0], chunk[1]));
+                evictSecondLevel(ids);
+                changedIds.addAll(ids);
+                int done = completed.incrementAndGet();
+                long rows = updated.addAndGet(ids.size());
+                if (progress != null) {
+                    progress.onChunk(done, chunks.size(), rows);
+                }
+            });
+        }
+        try {
+            run(tasks, parallel);
+        } finally {
+            detach(changedIds);
+        }
+
+        log.info("bulk agePlus : age>={}, chunks={}, rows={}, elapsed={}ms",
+                age, chunks.size(), updated.get(), System.currentTimeMillis() - start);
+        return updated.get();
+    }
+
+    public long agePlus(int age) {
+        return agePlus(age, true, null);
+    }
+
+    //청크 하나 - 바뀔 id 를 먼저 읽고 같은 조건으로 update 한다.
+    private List<Long> agePlusChunk(int age, long fromId, long toId) {
+        List<Long> ids = em.createQuery(
+                        "select m.id from Member m where m.age >= :age and m.id between :fromId and :toId", Long.class)
+                .setParameter("age", age)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        em.createNativeQuery("update member set age = age + 1, version = coalesce(version, 0) + 1 where member_id in (:ids)")
+                .setParameter("ids", ids)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(CHUNK_QUERY_SPACE)
+                .executeUpdate();
+        return ids;
+    }
+
+    private List<long[]> split(long minId, long maxId) {
+        List<long[]> chunks = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            chunks.add(new long[]{from, Math.min(maxId, from + chunkSize - 1)});
+        }
+        return chunks;
+    }
+
+    //청크 하나가 실패하면 아직 시작하지 않은 청크는 건너뛰고, 실행 중인 청크가 모두 끝난 뒤에 예외를 던진다.
+    //(끝나기 전에 던지면 detach / 캐시 무효화 뒤에 커밋되는 청크가 생긴다.)
+    private void run(List<Runnable> tasks, boolean parallel) {
+        if (!parallel) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(() -> {
+                if (aborted.get()) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    aborted.set(true);
+                    throw e;
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    //실행 중인 청크를 기다려야 하므로 남은 청크만 건너뛰게 하고 계속 기다린다.
+                    interrupted = true;
+                    aborted.set(true);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 update 가 중단되었습니다.", failure);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("벌크 update 청크 실행 중 오류가 발생했습니다.", failure);
+        }
+    }
+
+    //커밋된 청크의 회원만 2차 캐시에서 제거한다. (청크를 실행한 스레드에서 호출)
+    private void evictSecondLevel(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Cache cache = em.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        for (Long id : ids) {
+            cache.evictEntityData(Member.class, id);
+        }
+        cache.evictQueryRegion(USERNAME_QUERY_REGION);
+    }
+
+    //호출한 쪽 트랜잭션의 영속성 컨텍스트에 남은 바뀐 회원을 준영속으로 만든다. (호출한 스레드에서 실행)
+    private void detach(Set<Long> changedIds) {
+        if (changedIds.isEmpty() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member && changedIds.contains(((Member) entry.getKey()).getId())) {
+                stale.add(entry.getKey());
+            }
+        }
+        stale.forEach(em::detach);
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+//회원 변경
+//기본은 낙관적 락 + 재시도, 비교용으로 비관적 락(PESSIMISTIC_WRITE) 버전을 함께 둔다.
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @RetryOnOptimisticLock
+    @Transactional
+    public void changeTeam(Long memberId, Long teamId) {
+        Member member = findMember(memberId, LockModeType.NONE);
+        Team team = em.find(Team.class, teamId);
+        if (team == null) {
+            throw new EntityNotFoundException("팀이 없습니다. teamId=" + teamId);
+        }
+        member.changeTeam(team);
+    }
+
+    @RetryOnOptimisticLock
+    @Transactional
+    public int agePlus(Long memberId) {
+        Member member = findMember(memberId, LockModeType.NONE);
+        member.setAge(member.getAge() + 1);
+        return member.getAge();
+    }
+
+    //비관적 락 - select ... for update 로 다른 트랜잭션을 기다리게 한다.
+    @Transactional
+    public int agePlusPessimistic(Long memberId) {
+        Member member = findMember(memberId, LockModeType.PESSIMISTIC_WRITE);
+        member.setAge(member.getAge() + 1);
+        return member.getAge();
+    }
+
+    private Member findMember(Long memberId, LockModeType lockMode) {
+        Member member = em.find(Member.class, memberId, lockMode);
+        if (member == null) {
+            throw new EntityNotFoundException("회원이 없습니다. memberId=" + memberId);
+        }
+        return member;
+    }
+}
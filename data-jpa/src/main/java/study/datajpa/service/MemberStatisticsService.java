@@ -0,0 +1,176 @@
+package study.datajpa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.TeamAgeStatistics;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//팀/나이 통계
+//엔티티를 읽지 않고 DB 에서 (팀, 나이) 별 count 만 group by 로 가져와 팀별 나이 히스토그램을 만든다.
+//age 컬럼은 범위 제한이 없어서 (음수, 아주 큰 값) 나이를 인덱스로 쓰지 않고 정렬된 나이 배열 + 회원 수 배열로 둔다.
+//member_id 범위가 leafIdRange 보다 크면 반씩 나눠 fork-join 풀에서 병렬로 집계하고 히스토그램을 합친다.
+//count / avg / min / max 는 합친 히스토그램에서 계산한다.
+@Service
+public class MemberStatisticsService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readOnlyTx;
+    private final ForkJoinPool pool;
+    private final long leafIdRange;
+
+    public MemberStatisticsService(PlatformTransactionManager transactionManager,
+                                   @Value("${stats.parallelism:4}") int parallelism,
+                                   @Value("${stats.leaf-id-range:100000}") long leafIdRange) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism);
+        this.leafIdRange = leafIdRange;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public List<TeamAgeStatistics> teamAgeStatistics() {
+        Object[] range = readOnlyTx.execute(status ->
+                em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class).getSingleResult());
+        if (range == null || range[0] == null) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, AgeHistogram> histograms = pool.invoke(new HistogramTask((Long) range[0], (Long) range[1]));
+        Map<Long, String> teamNames = teamNames();
+
+        List<TeamAgeStatistics> result = new ArrayList<>();
+        for (Map.Entry<Long, AgeHistogram> entry : histograms.entrySet()) {
+            AgeHistogram histogram = entry.getValue();
+            result.add(new TeamAgeStatistics(entry.getKey(), teamNames.get(entry.getKey()),
+                    Arrays.copyOf(histogram.ages, histogram.size), Arrays.copyOf(histogram.counts, histogram.size)));
+        }
+        result.sort(Comparator.comparing(TeamAgeStatistics::getTeamId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    //member_id 범위 하나의 (팀, 나이) 별 count
+    //m.team.id 는 FK 컬럼이라 team 조인 없이 집계된다.
+    //나이 순으로 받아서 팀마다 배열 끝에 붙이기만 하면 정렬된 히스토그램이 된다.
+    private Map<Long, AgeHistogram> histogram(long fromId, long toId) {
+        List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(
+                        "select m.team.id, m.age, count(m) from Member m" +
+                                " where m.id between :fromId and :toId" +
+                                " group by m.team.id, m.age" +
+                                " order by m.age", Object[].class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList());
+
+        Map<Long, AgeHistogram> histograms = new HashMap<>();
+        for (Object[] row : rows) {
+            histograms.computeIfAbsent((Long) row[0], teamId -> new AgeHistogram(8))
+                    .append((Integer) row[1], (Long) row[2]);
+        }
+        return histograms;
+    }
+
+    private Map<Long, String> teamNames() {
+        List<Object[]> rows = readOnlyTx.execute(status ->
+                em.createQuery("select t.id, t.name from Team t", Object[].class).getResultList());
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : rows) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    private static Map<Long, AgeHistogram> merge(Map<Long, AgeHistogram> left, Map<Long, AgeHistogram> right) {
+        right.forEach((teamId, histogram) -> left.merge(teamId, histogram, AgeHistogram::merge));
+        return left;
+    }
+
+    //나이 오름차순 (ages[i], counts[i]) 쌍, 앞의 size 개만 유효하다.
+    private static class AgeHistogram {
+
+        private int[] ages;
+        private long[] counts;
+        private int size;
+
+        private AgeHistogram(int capacity) {
+            this.ages = new int[capacity];
+            this.counts = new long[capacity];
+        }
+
+        //age 는 마지막 값보다 크거나 같아야 한다.
+        private void append(int age, long count) {
+            if (size > 0 && ages[size - 1] == age) {
+                counts[size - 1] += count;
+                return;
+            }
+            if (size == ages.length) {
+                int capacity = Math.max(8, size * 2);
+                ages = Arrays.copyOf(ages, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            ages[size] = age;
+            counts[size] = count;
+            size++;
+        }
+
+        //정렬된 두 히스토그램을 한 번 훑어서 합친다.
+        private static AgeHistogram merge(AgeHistogram left, AgeHistogram right) {
+            AgeHistogram merged = new AgeHistogram(left.size + right.size);
+            int i = 0;
+            int j = 0;
+            while (i < left.size || j < right.size) {
+                if (j == right.size || (i < left.size && left.ages[i] <= right.ages[j])) {
+                    merged.append(left.ages[i], left.counts[i]);
+                    i++;
+                } else {
+                    merged.append(right.ages[j], right.counts[j]);
+                    j++;
+                }
+            }
+            return merged;
+        }
+    }
+
+    private class HistogramTask extends RecursiveTask<Map<Long, AgeHistogram>> {
+
+        private final long fromId;
+        private final long toId;
+
+        private HistogramTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Map<Long, AgeHistogram> compute() {
+            if (toId - fromId < leafIdRange) {
+                return histogram(fromId, toId);
+            }
+            long mid = fromId + (toId - fromId) / 2;
+            HistogramTask left = new HistogramTask(fromId, mid);
+            HistogramTask right = new HistogramTask(mid + 1, toId);
+            left.fork();
+            Map<Long, AgeHistogram> rightResult = right.compute();
+            return merge(left.join(), rightResult);
+        }
+    }
+}
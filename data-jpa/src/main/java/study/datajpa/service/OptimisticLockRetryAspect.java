@@ -0,0 +1,49 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+//@RetryOnOptimisticLock 처리
+//트랜잭션 어드바이스(LOWEST_PRECEDENCE)보다 먼저 실행되도록 순서를 앞에 둔다.
+//optimistic.lock.conflicts : 충돌 횟수, optimistic.lock.exhausted : 재시도를 다 쓰고 실패한 횟수
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class OptimisticLockRetryAspect {
+
+    private final MeterRegistry registry;
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        long backoff = retry.backoffMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                registry.counter("optimistic.lock.conflicts", "method", method).increment();
+                if (attempt >= retry.maxAttempts()) {
+                    registry.counter("optimistic.lock.exhausted", "method", method).increment();
+                    throw e;
+                }
+                log.debug("optimistic lock conflict : {}, attempt={}", method, attempt);
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                backoff = (long) (backoff * retry.multiplier());
+            }
+        }
+    }
+}
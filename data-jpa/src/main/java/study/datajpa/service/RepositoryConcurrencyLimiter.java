@@ -0,0 +1,45 @@
+package study.datajpa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//커넥션 풀 앞단 동시 실행 제한
+//풀 크기만큼만 DB 호출을 통과시키고 나머지는 세마포어에서 기다리게 한다.
+//가상 스레드는 대기 비용이 작아서 부하가 몰려도 스레드/커넥션이 고갈되지 않는다.
+@Component
+public class RepositoryConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+
+    public RepositoryConcurrencyLimiter(@Value("${async.repository.max-concurrency:10}") int maxConcurrency,
+                                        @Value("${async.repository.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    public <T> T call(Supplier<T> work) {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("리파지토리 호출 대기 시간이 초과되었습니다. timeout=" + acquireTimeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("리파지토리 호출 대기 중 중단되었습니다.", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//낙관적 락 충돌 시 트랜잭션 재실행
+//@Transactional 보다 바깥에서 동작하기 때문에 재시도마다 새 트랜잭션(새 영속성 컨텍스트)으로 다시 읽는다.
+//대기 시간은 backoffMillis * multiplier^(시도-1) 에 0 ~ 50% 지터를 더한다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+
+    int maxAttempts() default 5;
+
+    long backoffMillis() default 10;
+
+    double multiplier() default 2.0;
+}
@@ -0,0 +1,44 @@
+package study.datajpa.view;
+
+import lombok.Value;
+
+//회원/팀 변경 이벤트
+//MEMBER_SAVED   : id, name(username), teamId, version(Member.version)
+//MEMBER_DELETED : id, version(삭제 시점의 Member.version)
+//TEAM_SAVED     : id, name(팀 이름), version(Team.version)
+//TEAM_DELETED   : id, version(삭제 시점의 Team.version)
+//RESET          : 엔티티 이벤트를 거치지 않은 벌크 변경 - 구독자는 전체를 다시 읽어야 한다.
+//여러 트랜잭션의 afterCommit 은 커밋 순서대로 온다는 보장이 없으므로 구독자는 version 으로 이전 이벤트를 걸러낸다.
+@Value
+public class MemberChange {
+
+    public enum Type {
+        MEMBER_SAVED, MEMBER_DELETED, TEAM_SAVED, TEAM_DELETED, RESET
+    }
+
+    Type type;
+    Long id;
+    String name;
+    Long teamId;
+    Long version;
+
+    public static MemberChange memberSaved(Long id, String username, Long teamId, Long version) {
+        return new MemberChange(Type.MEMBER_SAVED, id, username, teamId, version);
+    }
+
+    public static MemberChange memberDeleted(Long id, Long version) {
+        return new MemberChange(Type.MEMBER_DELETED, id, null, null, version);
+    }
+
+    public static MemberChange teamSaved(Long id, String name, Long version) {
+        return new MemberChange(Type.TEAM_SAVED, id, name, null, version);
+    }
+
+    public static MemberChange teamDeleted(Long id, Long version) {
+        return new MemberChange(Type.TEAM_DELETED, id, null, null, version);
+    }
+
+    public static MemberChange reset() {
+        return new MemberChange(Type.RESET, null, null, null, null);
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.view;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+//프로세스 내부 회원/팀 변경 피드
+//엔티티 리스너가 publish 하고, 트랜잭션 안이면 모아뒀다가 커밋된 뒤에 순서대로 구독자에게 전달한다.
+//롤백된 트랜잭션의 변경은 전달하지 않는다.
+@Component
+public class MemberChangeFeed {
+
+    private final List<Consumer<MemberChange>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<MemberChange> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void publish(MemberChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(Collections.singletonList(change));
+            return;
+        }
+        currentBatch().changes.add(change);
+    }
+
+    //현재 트랜잭션의 Batch - REQUIRES_NEW 로 새로 시작한 트랜잭션은 자기 Batch 를 따로 가진다.
+    private Batch currentBatch() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Batch) {
+                return (Batch) synchronization;
+            }
+        }
+        Batch batch = new Batch();
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch;
+    }
+
+    private void deliver(List<MemberChange> changes) {
+        for (Consumer<MemberChange> subscriber : subscribers) {
+            changes.forEach(subscriber);
+        }
+    }
+
+    private class Batch implements TransactionSynchronization {
+
+        private final List<MemberChange> changes = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            deliver(changes);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.view;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//회원 엔티티 이벤트를 변경 피드로 보낸다.
+//changeTeam 으로 팀을 옮기면 team_id 가 바뀌므로 @PostUpdate 로 함께 잡힌다.
+//@PostUpdate 시점에는 올라간 version 이 엔티티에 들어 있다.
+//팀은 id 만 보낸다. (flush 중에 프록시를 초기화하지 않도록 팀 이름은 TEAM_SAVED 로 따로 받는다.)
+public class MemberChangeListener {
+
+    private final ObjectProvider<MemberChangeFeed> memberChangeFeed;
+
+    public MemberChangeListener(ObjectProvider<MemberChangeFeed> memberChangeFeed) {
+        this.memberChangeFeed = memberChangeFeed;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Member member) {
+        Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+        memberChangeFeed.ifAvailable(feed -> feed.publish(MemberChange.memberSaved(member.getId(), member.getUsername(), teamId, member.getVersion())));
+    }
+
+    @PostRemove
+    public void deleted(Member member) {
+        memberChangeFeed.ifAvailable(feed -> feed.publish(MemberChange.memberDeleted(member.getId(), member.getVersion())));
+    }
+}
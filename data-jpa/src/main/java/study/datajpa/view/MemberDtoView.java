@@ -0,0 +1,378 @@
+package study.datajpa.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//MemberDto 머티리얼라이즈드 뷰 (메모리)
+//findMemberDto() 처럼 매번 Member join Team 을 실행하지 않고, 변경 피드로 받은 변경만 반영해서 조회한다.
+//회원은 id 로, 팀 이름은 teamId 로 따로 들고 있어서 팀 이름이 바뀌어도 회원 행은 건드리지 않는다.
+//
+//처음 조회할 때와 RESET(벌크 연산) 이후에는 DB 에서 전체를 다시 읽는다.
+//다시 읽는 동안 들어온 변경은 모아뒀다가 새 상태에 이어서 반영한다.
+//
+//afterCommit 은 트랜잭션마다 따로 불리므로 같은 회원의 이벤트가 커밋 순서와 다르게 올 수 있다.
+//행마다 version 을 들고 있다가 들고 있는 것보다 오래된 이벤트는 버린다.
+//삭제된 id 는 삭제 시점 version 을 남겨서 늦게 도착한 저장 이벤트가 행을 되살리지 않게 한다.
+//id 는 시퀀스라 재사용되지 않고, 뒤바뀐 afterCommit 은 길어야 몇 초 차이로 오므로
+//tombstone-ttl-ms 가 지난 삭제 기록은 버린다. (다시 읽을 때도 비운다.)
+//
+//회원은 id 순 TreeMap 에 두어서 findAll / findByTeamName 이 정렬 없이 id 순으로 돌려준다.
+//@MemberBulkOperation 이 없는 벌크 JPQL 로 바꾼 내용은 반영되지 않는다.
+@Slf4j
+@Component
+public class MemberDtoView {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate rebuildTx;
+    private final long tombstoneTtlNanos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+
+    //아래 필드는 lock 으로 보호한다.
+    private NavigableMap<Long, Row> members = new TreeMap<>();
+    private Map<Long, TeamRow> teams = new HashMap<>();
+    private Map<Long, NavigableSet<Long>> membersByTeam = new HashMap<>();
+    //삭제 순서대로 (LinkedHashMap) - 앞에서부터 만료된 것을 버린다.
+    private Map<Long, Tombstone> deletedMembers = new LinkedHashMap<>();
+    private Map<Long, Tombstone> deletedTeams = new LinkedHashMap<>();
+    private boolean stale = true;
+    private List<MemberChange> changesDuringRebuild;
+
+    public MemberDtoView(MemberChangeFeed memberChangeFeed, PlatformTransactionManager transactionManager,
+                         @Value("${view.member-dto.tombstone-ttl-ms:60000}") long tombstoneTtlMillis) {
+        this.tombstoneTtlNanos = TimeUnit.MILLISECONDS.toNanos(tombstoneTtlMillis);
+        //호출한 쪽 트랜잭션의 커밋 전 변경을 읽지 않도록 별도 트랜잭션으로 다시 읽는다.
+        this.rebuildTx = new TransactionTemplate(transactionManager);
+        this.rebuildTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTx.setReadOnly(true);
+        memberChangeFeed.subscribe(this::apply);
+    }
+
+    //findMemberDto() 대응 - 팀이 있는 회원만 (inner join)
+    public List<MemberDto> findAll() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            List<MemberDto> result = new ArrayList<>();
+            for (Row row : members.values()) {
+                if (row.teamId != null) {
+                    result.add(toDto(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<MemberDto> findById(Long id) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(members.get(id)).map(this::toDto);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<MemberDto> findByTeamName(String teamName) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            List<MemberDto> result = new ArrayList<>();
+            int matchedTeams = 0;
+            for (Map.Entry<Long, TeamRow> team : teams.entrySet()) {
+                if (team.getValue().name != null && team.getValue().name.equals(teamName)) {
+                    matchedTeams++;
+                    for (Long memberId : membersByTeam.getOrDefault(team.getKey(), Collections.emptyNavigableSet())) {
+                        result.add(toDto(members.get(memberId)));
+                    }
+                }
+            }
+            //팀마다 id 순이므로 같은 이름의 팀이 여럿일 때만 합쳐서 정렬한다.
+            if (matchedTeams > 1) {
+                result.sort(Comparator.comparing(MemberDto::getId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int tombstoneCount() {
+        lock.readLock().lock();
+        try {
+            return deletedMembers.size() + deletedTeams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //nowNanos 기준으로 만료된 삭제 기록을 버린다.
+    void pruneTombstones(long nowNanos) {
+        lock.writeLock().lock();
+        try {
+            prune(deletedMembers, nowNanos);
+            prune(deletedTeams, nowNanos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void apply(MemberChange change) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            } else if (change.getType() == MemberChange.Type.RESET) {
+                stale = true;
+            } else if (!stale) {
+                applyChange(change);
+                long now = System.nanoTime();
+                prune(deletedMembers, now);
+                prune(deletedTeams, now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (!isStale()) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                if (!stale) {
+                    return;
+                }
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.currentTimeMillis();
+            Snapshot snapshot;
+            try {
+                snapshot = rebuildTx.execute(status -> load());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                members = snapshot.members;
+                teams = snapshot.teams;
+                membersByTeam = snapshot.membersByTeam;
+                deletedMembers = new LinkedHashMap<>();
+                deletedTeams = new LinkedHashMap<>();
+                stale = false;
+                List<MemberChange> changes = changesDuringRebuild;
+                changesDuringRebuild = null;
+                for (MemberChange change : changes) {
+                    if (change.getType() == MemberChange.Type.RESET) {
+                        stale = true;
+                    } else {
+                        applyChange(change);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("MemberDto view rebuilt : members={}, elapsed={}ms",
+                    snapshot.members.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private Snapshot load() {
+        Snapshot snapshot = new Snapshot();
+        List<Object[]> teams = em.createQuery("select t.id, t.name, t.version from Team t", Object[].class).getResultList();
+        for (Object[] team : teams) {
+            snapshot.teams.put((Long) team[0], new TeamRow((String) team[1], version((Long) team[2])));
+        }
+        List<Object[]> rows = em.createQuery("select m.id, m.username, m.team.id, m.version from Member m", Object[].class)
+                .getResultList();
+        for (Object[] row : rows) {
+            Row member = new Row((Long) row[0], (String) row[1], (Long) row[2], version((Long) row[3]));
+            snapshot.members.put(member.id, member);
+            index(snapshot.membersByTeam, member);
+        }
+        return snapshot;
+    }
+
+    //저장 이벤트는 들고 있는 version 보다 클 때만, 삭제 이벤트는 같거나 클 때만 반영한다.
+    //(삭제는 version 을 올리지 않으므로 마지막 저장과 같은 version 으로 온다.)
+    private void applyChange(MemberChange change) {
+        long version = version(change.getVersion());
+        switch (change.getType()) {
+            case MEMBER_SAVED: {
+                Row old = members.get(change.getId());
+                if ((old != null && version <= old.version) || version <= deletedVersion(deletedMembers, change.getId())) {
+                    break;
+                }
+                removeMember(change.getId());
+                Row row = new Row(change.getId(), change.getName(), change.getTeamId(), version);
+                members.put(row.id, row);
+                index(membersByTeam, row);
+                break;
+            }
+            case MEMBER_DELETED: {
+                Row old = members.get(change.getId());
+                if (old != null && version < old.version) {
+                    break;
+                }
+                removeMember(change.getId());
+                tombstone(deletedMembers, change.getId(), version);
+                break;
+            }
+            case TEAM_SAVED: {
+                TeamRow old = teams.get(change.getId());
+                if ((old != null && version <= old.version) || version <= deletedVersion(deletedTeams, change.getId())) {
+                    break;
+                }
+                teams.put(change.getId(), new TeamRow(change.getName(), version));
+                break;
+            }
+            case TEAM_DELETED: {
+                TeamRow old = teams.get(change.getId());
+                if (old != null && version < old.version) {
+                    break;
+                }
+                teams.remove(change.getId());
+                tombstone(deletedTeams, change.getId(), version);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private static long deletedVersion(Map<Long, Tombstone> tombstones, Long id) {
+        Tombstone tombstone = tombstones.get(id);
+        return tombstone == null ? -1L : tombstone.version;
+    }
+
+    //다시 넣어서 삭제 순서(만료 순서)의 맨 뒤로 보낸다.
+    private void tombstone(Map<Long, Tombstone> tombstones, Long id, long version) {
+        Tombstone old = tombstones.remove(id);
+        tombstones.put(id, new Tombstone(old == null ? version : Math.max(old.version, version),
+                System.nanoTime() + tombstoneTtlNanos));
+    }
+
+    private static void prune(Map<Long, Tombstone> tombstones, long nowNanos) {
+        Iterator<Tombstone> it = tombstones.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt - nowNanos > 0) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    //version 이 없는 행(벌크 insert 등)은 어떤 이벤트보다도 오래된 것으로 본다.
+    private static long version(Long version) {
+        return version == null ? -1L : version;
+    }
+
+    private void removeMember(Long id) {
+        Row old = members.remove(id);
+        if (old != null && old.teamId != null) {
+            NavigableSet<Long> teamMembers = membersByTeam.get(old.teamId);
+            if (teamMembers != null) {
+                teamMembers.remove(id);
+            }
+        }
+    }
+
+    private static void index(Map<Long, NavigableSet<Long>> membersByTeam, Row row) {
+        if (row.teamId != null) {
+            membersByTeam.computeIfAbsent(row.teamId, teamId -> new TreeSet<>()).add(row.id);
+        }
+    }
+
+    private MemberDto toDto(Row row) {
+        TeamRow team = row.teamId == null ? null : teams.get(row.teamId);
+        return new MemberDto(row.id, row.username, team == null ? null : team.name);
+    }
+
+    private static class Row {
+        private final Long id;
+        private final String username;
+        private final Long teamId;
+        private final long version;
+
+        private Row(Long id, String username, Long teamId, long version) {
+            this.id = id;
+            this.username = username;
+            this.teamId = teamId;
+            this.version = version;
+        }
+    }
+
+    private static class TeamRow {
+        private final String name;
+        private final long version;
+
+        private TeamRow(String name, long version) {
+            this.name = name;
+            this.version = version;
+        }
+    }
+
+    private static class Tombstone {
+        private final long version;
+        private final long expiresAt;
+
+        private Tombstone(long version, long expiresAt) {
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Snapshot {
+        private final NavigableMap<Long, Row> members = new TreeMap<>();
+        private final Map<Long, TeamRow> teams = new HashMap<>();
+        private final Map<Long, NavigableSet<Long>> membersByTeam = new HashMap<>();
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.view;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Team;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//팀 엔티티 이벤트를 변경 피드로 보낸다.
+public class TeamChangeListener {
+
+    private final ObjectProvider<MemberChangeFeed> memberChangeFeed;
+
+    public TeamChangeListener(ObjectProvider<MemberChangeFeed> memberChangeFeed) {
+        this.memberChangeFeed = memberChangeFeed;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Team team) {
+        memberChangeFeed.ifAvailable(feed -> feed.publish(MemberChange.teamSaved(team.getId(), team.getName(), team.getVersion())));
+    }
+
+    @PostRemove
+    public void deleted(Team team) {
+        memberChangeFeed.ifAvailable(feed -> feed.publish(MemberChange.teamDeleted(team.getId(), team.getVersion())));
+    }
+}
@@ -0,0 +1,293 @@
+package study.datajpa.writebehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.cache.MemberUsernameCache;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCountCache;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//회원 나이 변경 write-behind 버퍼 (write-behind.member.enabled=true 일 때만 등록)
+//변경마다 트랜잭션 + 엔티티 조회 + 더티체킹 + flush 를 하는 대신,
+//memberId 별 마지막 값만 메모리에 모아두고(coalescing) flush-interval 마다 JDBC 배치 update 로 한 번에 쓴다.
+//
+//- 백프레셔 : 서로 다른 회원이 capacity 명 쌓이면 새 회원 변경은 flush 로 자리가 날 때까지 기다리고,
+//            offer-timeout 이 지나면 RejectedExecutionException
+//- 내구성   : 버퍼에 넣기 전에 WriteBehindJournal 에 먼저 쓰고, 재시작 시 남은 저널을 다시 버퍼에 넣는다.
+//- 정합성   : update 때 version 도 올려서 이미 읽어둔 엔티티의 수정은 낙관적 락으로 막히고,
+//            flush 후 바뀐 회원의 2차 캐시와 그 회원들의 username 캐시, 바뀌기 전/후 나이의 count 캐시만 비운다.
+//flush 전까지 DB 에는 이전 나이가 보인다. 즉시 읽기 일관성이 필요한 변경은 MemberService 를 쓴다.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "write-behind.member.enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+
+    private static final String UPDATE_SQL = "update member set age = ?, version = version + 1 where member_id = ?";
+    //update 전에 같은 트랜잭션에서 읽는다. username 캐시 키와 바뀌기 전 나이 (count 캐시 키)
+    private static final String SELECT_AFFECTED_SQL = "select username, age from member where member_id in (:memberIds)";
+    private static final String USERNAME_QUERY_REGION = "query.Member.byUsername";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate tx;
+    private final EntityManagerFactory emf;
+    private final MemberCountCache countCache;
+    private final MemberUsernameCache usernameCache;
+    private final WriteBehindJournal journal;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Object flushLock = new Object();
+
+    private final int capacity;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+
+    //아래 두 필드는 this 로 동기화한다.
+    private Map<Long, Integer> pending = new LinkedHashMap<>();
+    private long pendingUpdates;
+
+    private final AtomicLong flushedUpdates = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final Timer flushTimer;
+    private final Counter updatesCounter;
+    private final Counter rowsCounter;
+
+    public MemberWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   EntityManagerFactory emf,
+                                   MemberCountCache countCache,
+                                   MemberUsernameCache usernameCache,
+                                   MeterRegistry registry,
+                                   @Value("${write-behind.member.capacity:10000}") int capacity,
+                                   @Value("${write-behind.member.flush-interval-ms:1000}") long flushIntervalMillis,
+                                   @Value("${write-behind.member.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                   @Value("${write-behind.member.journal-dir}") String journalDir,
+                                   @Value("${write-behind.member.fsync:false}") boolean fsync,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.emf = emf;
+        this.countCache = countCache;
+        this.usernameCache = usernameCache;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        //tmp 같은 기본 위치에 조용히 쓰지 않도록 비어 있으면 기동을 막는다.
+        if (journalDir.isBlank()) {
+            throw new IllegalStateException("write-behind.member.journal-dir 를 지정해야 합니다.");
+        }
+        this.journal = new WriteBehindJournal(Paths.get(journalDir), fsync);
+        this.pending.putAll(journal.recover());
+        this.pendingUpdates = pending.size();
+
+        this.flushTimer = Timer.builder("member.write-behind.flush")
+                .description("write-behind 배치 update 시간")
+                .register(registry);
+        this.updatesCounter = Counter.builder("member.write-behind.updates")
+                .description("flush 된 변경 요청 수")
+                .register(registry);
+        this.rowsCounter = Counter.builder("member.write-behind.rows")
+                .description("flush 된 update row 수")
+                .register(registry);
+        Gauge.builder("member.write-behind.pending", this, MemberWriteBehindBuffer::pendingCount)
+                .register(registry);
+        //변경 요청 수 / update row 수 - 클수록 많이 합쳐졌다.
+        Gauge.builder("member.write-behind.coalescing.ratio", this, MemberWriteBehindBuffer::coalescingRatio)
+                .register(registry);
+
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setAge(Long memberId, int age) {
+        synchronized (this) {
+            if (!pending.containsKey(memberId) && pending.size() >= capacity) {
+                awaitCapacity(memberId);
+            }
+            try {
+                journal.append(memberId, age);
+            } catch (IOException e) {
+                throw new UncheckedIOException("write-behind 저널 기록에 실패했습니다.", e);
+            }
+            pending.put(memberId, age);
+            pendingUpdates++;
+        }
+    }
+
+    //버퍼에 쌓인 변경을 지금 DB 에 쓴다. 쓴 회원 수를 반환한다.
+    public int flush() {
+        synchronized (flushLock) {
+            Map<Long, Integer> batch;
+            long updates;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                try {
+                    journal.rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("write-behind 저널 교체에 실패했습니다.", e);
+                }
+                batch = pending;
+                updates = pendingUpdates;
+                pending = new LinkedHashMap<>();
+                pendingUpdates = 0;
+                //batch 는 이미 저널(flushing)에 있으므로 DB 에 쓰는 동안에도 새 변경을 받는다.
+                notifyAll();
+            }
+
+            long start = System.nanoTime();
+            Affected affected;
+            try {
+                affected = write(batch);
+                journal.commit();
+            } catch (RuntimeException | IOException e) {
+                requeue(batch);
+                throw new IllegalStateException("write-behind flush 에 실패했습니다. rows=" + batch.size(), e);
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            evict(batch, affected);
+            flushedUpdates.addAndGet(updates);
+            flushedRows.addAndGet(batch.size());
+            updatesCounter.increment(updates);
+            rowsCounter.increment(batch.size());
+            return batch.size();
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public double coalescingRatio() {
+        long rows = flushedRows.get();
+        return rows == 0 ? 1.0 : (double) flushedUpdates.get() / rows;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+        journal.close();
+    }
+
+    private void awaitCapacity(Long memberId) {
+        scheduler.execute(this::flushQuietly);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        try {
+            while (!pending.containsKey(memberId) && pending.size() >= capacity) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RejectedExecutionException("write-behind 버퍼가 가득 찼습니다. capacity=" + capacity);
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("write-behind 버퍼 대기 중 중단되었습니다.", e);
+        }
+    }
+
+    private Affected write(Map<Long, Integer> batch) {
+        return tx.execute(status -> {
+            Affected affected = new Affected();
+            List<Long> memberIds = new ArrayList<>(batch.keySet());
+            for (int from = 0; from < memberIds.size(); from += batchSize) {
+                List<Long> chunk = memberIds.subList(from, Math.min(from + batchSize, memberIds.size()));
+                namedJdbcTemplate.query(SELECT_AFFECTED_SQL, Collections.singletonMap("memberIds", chunk), rs -> {
+                    String username = rs.getString(1);
+                    if (username != null) {
+                        affected.usernames.add(username);
+                    }
+                    affected.ages.add(rs.getInt(2));
+                });
+            }
+            affected.ages.addAll(batch.values());
+
+            jdbcTemplate.batchUpdate(UPDATE_SQL, new ArrayList<>(batch.entrySet()), batchSize,
+                    (ps, entry) -> {
+                        ps.setInt(1, entry.getValue());
+                        ps.setLong(2, entry.getKey());
+                    });
+            return affected;
+        });
+    }
+
+    //실패한 배치를 다시 버퍼에 넣는다. 그 사이 새 값이 들어온 회원은 새 값을 유지한다.
+    //버퍼에는 저널 기록과 관계없이 전부 넣는다. 저널에 다시 쓰지 못하면 flushing 저널이 남고 다음 rotate 때 active 와 합쳐진다.
+    private synchronized void requeue(Map<Long, Integer> batch) {
+        Map<Long, Integer> requeued = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : batch.entrySet()) {
+            if (!pending.containsKey(entry.getKey())) {
+                pending.put(entry.getKey(), entry.getValue());
+                pendingUpdates++;
+                requeued.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            for (Map.Entry<Long, Integer> entry : requeued.entrySet()) {
+                journal.append(entry.getKey(), entry.getValue());
+            }
+            journal.commit();
+        } catch (IOException e) {
+            log.error("write-behind requeue failed", e);
+        }
+    }
+
+    //JDBC 로 직접 바꿨으므로 Hibernate 캐시와 나이/username 캐시를 직접 비운다.
+    //username 은 바뀌지 않으므로 이 회원들의 username 키만, count 는 바뀌기 전/후 나이만 비운다.
+    private void evict(Map<Long, Integer> batch, Affected affected) {
+        Cache cache = emf.getCache().unwrap(Cache.class);
+        for (Long memberId : batch.keySet()) {
+            cache.evictEntityData(Member.class, memberId);
+        }
+        cache.evictQueryRegion(USERNAME_QUERY_REGION);
+        affected.ages.forEach(countCache::evict);
+        affected.usernames.forEach(usernameCache::invalidate);
+    }
+
+    //flush 로 값이 바뀌는 캐시 키
+    private static class Affected {
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<Integer> ages = new HashSet<>();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("write-behind flush failed", e);
+        }
+    }
+}
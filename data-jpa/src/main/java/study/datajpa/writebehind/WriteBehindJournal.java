@@ -0,0 +1,161 @@
+package study.datajpa.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//write-behind 로컬 저널 (append-only)
+//버퍼에 넣기 전에 "memberId,age" 한 줄을 먼저 파일에 쓴다.
+//flush 시작 시 active -> flushing 으로 이름을 바꾸고 새 active 를 연다. DB 커밋이 끝나면 flushing 을 지운다.
+//프로세스가 죽으면 재시작 시 flushing, active 순서로 읽어서 (나중 값 우선) 버퍼를 복구한다.
+//
+//FileChannel 로 바로 쓰므로 프로세스가 죽어도 OS 에 넘어간 내용은 남는다.
+//전원 장애까지 견디려면 fsync 를 켠다. (쓰기마다 디스크 동기화라 느려진다.)
+//
+//디렉토리는 한 프로세스만 쓸 수 있다. 열 때 lock 파일에 FileChannel.tryLock() 을 잡고, 이미 잡혀 있으면 실패한다.
+//(같은 디렉토리를 두 노드가 쓰면 서로의 flushing 저널을 지우거나 덮어쓴다.)
+@Slf4j
+class WriteBehindJournal implements Closeable {
+
+    private final Path active;
+    private final Path flushing;
+    private final Path compacted;
+    private final boolean fsync;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private FileChannel channel;
+
+    WriteBehindJournal(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.active = directory.resolve("member-age.journal");
+        this.flushing = directory.resolve("member-age.journal.flushing");
+        this.compacted = directory.resolve("member-age.journal.tmp");
+        this.fsync = fsync;
+
+        this.lockChannel = FileChannel.open(directory.resolve("member-age.journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            //같은 JVM 안에서 이미 잡고 있다.
+            acquired = null;
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IllegalStateException("write-behind 저널 디렉토리를 다른 프로세스가 사용 중입니다. dir=" + directory);
+        }
+        this.lock = acquired;
+    }
+
+    //남아 있는 저널을 읽어서 돌려주고, 그 내용만 담은 새 active 저널로 시작한다.
+    Map<Long, Integer> recover() throws IOException {
+        Map<Long, Integer> recovered = new LinkedHashMap<>();
+        read(flushing, recovered);
+        read(active, recovered);
+
+        //합친 내용을 임시 파일에 쓰고 active 로 바꾼 다음에야 flushing 을 지운다. (중간에 죽어도 잃는 값이 없다.)
+        write(compacted, recovered);
+        Files.move(compacted, active, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(flushing);
+
+        channel = open();
+        if (!recovered.isEmpty()) {
+            log.info("write-behind journal recovered : {} members", recovered.size());
+        }
+        return recovered;
+    }
+
+    void append(long memberId, int age) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((memberId + "," + age + "\n").getBytes(StandardCharsets.US_ASCII));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    //flush 시작 - 지금까지의 저널을 flushing 으로 넘긴다.
+    //requeue 가 저널에 다시 쓰지 못해서 이전 flushing 이 남아 있으면 덮어쓰지 않고 active 와 합친다. (나중 값 우선)
+    void rotate() throws IOException {
+        channel.close();
+        if (Files.exists(flushing)) {
+            Map<Long, Integer> merged = new LinkedHashMap<>();
+            read(flushing, merged);
+            read(active, merged);
+            //합친 내용을 flushing 으로 바꾼 다음에야 active 를 지운다. (중간에 죽어도 복구 시 같은 값이 나온다.)
+            write(compacted, merged);
+            Files.move(compacted, flushing, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(active);
+        } else {
+            Files.move(active, flushing, StandardCopyOption.ATOMIC_MOVE);
+        }
+        channel = open();
+    }
+
+    //flush 완료 (또는 실패한 항목을 active 에 다시 쓴 뒤) - flushing 저널은 더 이상 필요 없다.
+    void commit() throws IOException {
+        Files.deleteIfExists(flushing);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void write(Path path, Map<Long, Integer> entries) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        entries.forEach((memberId, age) -> lines.append(memberId).append(',').append(age).append('\n'));
+        Files.write(path, lines.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    //마지막 줄은 쓰다 만 상태일 수 있으므로 형식이 안 맞는 줄은 버린다.
+    private static void read(Path path, Map<Long, Integer> into) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+        for (String line : lines) {
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                continue;
+            }
+            try {
+                long memberId = Long.parseLong(line.substring(0, comma));
+                int age = Integer.parseInt(line.substring(comma + 1));
+                into.remove(memberId);
+                into.put(memberId, age);
+            } catch (NumberFormatException e) {
+                log.warn("write-behind journal skipped broken line : {}", line);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- 초기 스키마 (fast-start 프로필 - ddl-auto: validate)
+-- 엔티티 매핑과 같아야 한다. 엔티티를 바꾸면 V2__... 로 마이그레이션을 추가한다.
+-- 시퀀스 increment 는 datajpa.id.allocation-size (50) 와 같아야 한다.
+
+create sequence member_seq start with 1 increment by 50;
+create sequence team_seq start with 1 increment by 50;
+
+create table team (
+    team_id      bigint       not null,
+    name         varchar(255),
+    version      bigint,
+    member_count integer      not null,
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint       not null,
+    username  varchar(255),
+    age       integer      not null,
+    version   bigint,
+    team_id   bigint,
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team (team_id)
+);
+
+create index idx_member_age_username_id on member (age, username, member_id);
+create index idx_member_username on member (username);
+create index idx_member_team_id on member (team_id);
+create index idx_team_member_count on team (member_count);
+create index idx_team_name on team (name);
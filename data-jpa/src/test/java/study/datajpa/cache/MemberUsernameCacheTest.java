@@ -0,0 +1,88 @@
+package study.datajpa.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberUsernameCacheTest {
+
+    @Autowired
+    MemberUsernameCache memberUsernameCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    InvalidationChannel invalidationChannel;
+
+    @PersistenceContext
+    EntityManager em;
+
+    //회원을 수정하면 캐시가 비워져서 바뀐 값을 읽어야 한다.
+    @Test
+    public void invalidateOnWrite() {
+        //given
+        Member member = memberRepository.save(new Member("cached", 10));
+        em.flush();
+        List<MemberSnapshot> before = memberUsernameCache.findByUsername("cached");
+
+        //when
+        member.setAge(11);
+        member.setUsername("renamed");
+        em.flush();
+
+        //then
+        Assertions.assertThat(before).extracting("age").containsExactly(10);
+        Assertions.assertThat(memberUsernameCache.findByUsername("cached")).isEmpty();
+        Assertions.assertThat(memberUsernameCache.findUser("renamed", 11)).hasSize(1);
+    }
+
+    //팀 이름을 바꾸면 그 팀 회원의 스냅샷도 비워져서 바뀐 팀 이름을 읽어야 한다.
+    @Test
+    public void invalidateOnTeamRename() {
+        //given
+        Team team = new Team("beforeRename");
+        em.persist(team);
+        memberRepository.save(new Member("teamCached", 10, team));
+        em.flush();
+        List<MemberSnapshot> before = memberUsernameCache.findByUsername("teamCached");
+
+        //when
+        team.setName("afterRename");
+        em.flush();
+
+        //then
+        Assertions.assertThat(before).extracting("teamName").containsExactly("beforeRename");
+        Assertions.assertThat(memberUsernameCache.findByUsername("teamCached")).extracting("teamName").containsExactly("afterRename");
+    }
+
+    //다른 노드에서 온 무효화 메시지도 반영해야 한다.
+    @Test
+    public void invalidateFromOtherNode() {
+        //given
+        //엔티티 이벤트 없이 지워서 이 노드의 캐시에는 이전 값이 남아 있는 상태
+        memberRepository.save(new Member("remote", 20));
+        em.flush();
+        memberUsernameCache.findByUsername("remote");
+        em.createQuery("delete from Member m where m.username = 'remote'").executeUpdate();
+        Assertions.assertThat(memberUsernameCache.findOneByUsername("remote")).isPresent();
+
+        //when
+        invalidationChannel.publish(new InvalidationMessage("other-node", MemberUsernameCache.CACHE_NAME, "remote"));
+
+        //then
+        Assertions.assertThat(memberUsernameCache.findOneByUsername("remote")).isEmpty();
+    }
+}
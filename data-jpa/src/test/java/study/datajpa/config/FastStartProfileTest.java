@@ -0,0 +1,56 @@
+package study.datajpa.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.transaction.Transactional;
+import java.time.Duration;
+import java.util.Map;
+
+//fast-start 프로필 - Flyway + validate, deferred 리파지토리로 기동해도 리파지토리가 동작해야 한다.
+@SpringBootTest
+@ActiveProfiles("fast-start")
+@Transactional
+class FastStartProfileTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    StartupTimingReporter startupTimingReporter;
+
+    @Test
+    public void deferredRepository() {
+        //given
+        Member member = memberRepository.save(new Member("fastStart", 10));
+
+        //when
+        Member findMember = memberRepository.findById(member.getId()).get();
+
+        //then
+        Assertions.assertThat(findMember.getUsername()).isEqualTo("fastStart");
+    }
+
+    //기동 단계 묶기 - 알려진 단계만 이름을 붙여서 합친다.
+    @Test
+    public void startupPhases() {
+        //given
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(16);
+        startup.start("spring.data.repository.init").end();
+        startup.start("spring.data.repository.init").end();
+        startup.start("spring.beans.instantiate").tag("beanName", "entityManagerFactory").end();
+        startup.start("spring.beans.instantiate").tag("beanName", "helloController").end();
+
+        //when
+        Map<String, Duration> phases = startupTimingReporter.phases(startup);
+
+        //then
+        Assertions.assertThat(phases).containsOnlyKeys("repository-init", "hibernate");
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberQueryRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamJpaRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+//테스트에서는 예열이 꺼져 있어서 (test/resources/config/application.yml) 여기서만 켠다.
+@SpringBootTest(properties = "warmup.enabled=true")
+@Transactional
+class QueryWarmUpRunnerTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    QueryWarmUpRunner queryWarmUpRunner;
+
+    //리파지토리에 조회 메소드를 추가하고 예열 대상에 넣지 않으면 실패한다.
+    @Test
+    public void everyQueryMethodIsWarmed() {
+        //given
+        Set<String> queryMethods = new TreeSet<>();
+        for (Class<?> repository : List.of(MemberRepository.class, MemberJpaRepository.class, MemberQueryRepository.class,
+                TeamRepository.class, TeamJpaRepository.class)) {
+            for (Method method : repository.getMethods()) {
+                if (isQueryMethod(method)) {
+                    queryMethods.add(repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+
+        //when
+        Set<String> warmed = queryWarmUpRunner.targets().keySet();
+
+        //then
+        Assertions.assertThat(warmed).containsAll(queryMethods);
+    }
+
+    //직접 선언한 find* / count* / total* 메소드 (Stream 은 닫아야 해서 제외)
+    private static boolean isQueryMethod(Method method) {
+        String name = method.getName();
+        return method.getDeclaringClass().getPackageName().startsWith("study.datajpa")
+                && (name.startsWith("find") || name.startsWith("count") || name.startsWith("total"))
+                && !Stream.class.isAssignableFrom(method.getReturnType());
+    }
+
+    //예열한 문자열 JPQL 은 첫 호출부터 쿼리 플랜 캐시에서 가져와야 한다.
+    @Test
+    public void planCacheWarmedUp() {
+        //given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long miss = statistics.getQueryPlanCacheMissCount();
+
+        //when
+        memberJpaRepository.findByUserNameAndAgeGreaterThen("warm", 1);
+
+        //then
+        Assertions.assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hit);
+        Assertions.assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(miss);
+    }
+
+    //플랜 캐시 지표는 한 번만 등록된다.
+    @Test
+    public void planCacheMeters() {
+        Assertions.assertThat(registry.find("hibernate.query.plan.cache.hit").functionCounters()).hasSize(1);
+        Assertions.assertThat(registry.find("hibernate.query.plan.cache.miss").functionCounters()).hasSize(1);
+        Assertions.assertThat(registry.find("hibernate.query.plan.cache.hit.ratio").gauges()).hasSize(1);
+        Assertions.assertThat(registry.get("hibernate.query.plan.cache.hit").functionCounter().count()).isPositive();
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.config.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//read-your-writes 라우팅 - 마커는 스레드가 아니라 호출자(요청)를 따라간다.
+class ReadYourWritesTest {
+
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:ryw_primary"),
+            Map.of("replica-0", new DriverManagerDataSource("jdbc:h2:mem:ryw_replica")),
+            60_000);
+
+    @AfterEach
+    public void cleanUp() {
+        ReadYourWrites.bind(null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void readAfterCommittedWriteGoesToPrimary() {
+        //given
+        ReadYourWrites.Marker marker = new ReadYourWrites.Marker();
+        ReadYourWrites.bind(marker);
+        String beforeWrite = readOnlyLookupKey();
+
+        //when - 아무것도 쓰지 않은 쓰기 트랜잭션
+        begin(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clear();
+        String afterEmptyWrite = readOnlyLookupKey();
+
+        //when - 쓰기를 실행하고 커밋한 트랜잭션
+        begin(false);
+        ReadYourWrites.writeExecuted();
+        boolean beforeCommit = marker.wroteWithin(60_000);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clear();
+
+        //then
+        Assertions.assertThat(beforeWrite).isEqualTo("replica-0");
+        Assertions.assertThat(afterEmptyWrite).isEqualTo("replica-0");
+        Assertions.assertThat(beforeCommit).isFalse();
+        Assertions.assertThat(readOnlyLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    //같은 스레드라도 마커가 다르면(다른 요청) primary 에 묶이지 않고, repositoryExecutor 로 넘긴 작업은 마커를 이어받는다.
+    @Test
+    public void markerFollowsCaller() throws Exception {
+        //given
+        ReadYourWrites.Marker written = new ReadYourWrites.Marker();
+        written.markWrite();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            //when
+            ReadYourWrites.bind(written);
+            String propagated = CompletableFuture.supplyAsync(this::readOnlyLookupKey,
+                    command -> executor.execute(ReadYourWrites.taskDecorator().decorate(command))).get();
+            String undecorated = CompletableFuture.supplyAsync(this::readOnlyLookupKey, executor).get();
+            ReadYourWrites.bind(new ReadYourWrites.Marker());
+            String otherRequest = readOnlyLookupKey();
+
+            //then
+            Assertions.assertThat(propagated).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+            Assertions.assertThat(undecorated).isEqualTo("replica-0");
+            Assertions.assertThat(otherRequest).isEqualTo("replica-0");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String readOnlyLookupKey() {
+        begin(true);
+        try {
+            return (String) routing.determineCurrentLookupKey();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void begin(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
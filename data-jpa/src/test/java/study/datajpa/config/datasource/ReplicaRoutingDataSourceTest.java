@@ -0,0 +1,64 @@
+package study.datajpa.config.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//로컬 H2 인스턴스(primary, replica 2개)로 라우팅을 확인한다.
+class ReplicaRoutingDataSourceTest {
+
+    @AfterEach
+    public void clear() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    //readOnly 트랜잭션은 레플리카를 번갈아 사용하고, 쓰기는 primary
+    @Test
+    public void routeByReadOnly() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(0);
+
+        Assertions.assertThat(urlOf(dataSource, true)).contains("routing_replica");
+        Assertions.assertThat(urlOf(dataSource, true)).contains("routing_replica");
+        Assertions.assertThat(urlOf(dataSource, false)).contains("routing_primary");
+    }
+
+    //쓰기 직후 sticky window 안의 읽기는 primary
+    @Test
+    public void readYourWrites() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(60_000);
+
+        urlOf(dataSource, false);
+
+        Assertions.assertThat(urlOf(dataSource, true)).contains("routing_primary");
+    }
+
+    private static ReplicaRoutingDataSource routingDataSource(long stickyWindowMillis) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", h2("routing_replica0"));
+        replicas.put("replica-1", h2("routing_replica1"));
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(h2("routing_primary"), replicas, stickyWindowMillis);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static String urlOf(DataSource dataSource, boolean readOnly) throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
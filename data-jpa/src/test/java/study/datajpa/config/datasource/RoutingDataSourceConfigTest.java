@@ -0,0 +1,54 @@
+package study.datajpa.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+//spring.datasource.hikari.* 가 primary 와 레플리카 풀에 모두 적용되는지 확인한다.
+class RoutingDataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(DataSourcePropertiesConfig.class, RoutingDataSourceConfig.class)
+            .withPropertyValues(
+                    "datasource.routing.enabled=true",
+                    "datasource.routing.health-check-interval-ms=60000",
+                    "spring.datasource.url=jdbc:h2:mem:routing_config_primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.username=sa",
+                    "spring.datasource.hikari.maximum-pool-size=7",
+                    "spring.datasource.hikari.connection-timeout=2500",
+                    "datasource.routing.replicas[0].url=jdbc:h2:mem:routing_config_replica0;DB_CLOSE_DELAY=-1",
+                    "datasource.routing.replicas[0].username=sa",
+                    "datasource.routing.replicas[1].url=jdbc:h2:mem:routing_config_replica1;DB_CLOSE_DELAY=-1",
+                    "datasource.routing.replicas[1].username=sa",
+                    "datasource.routing.replicas[1].hikari.maximum-pool-size=3");
+
+    @Test
+    public void bindHikariProperties() {
+        contextRunner.run(context -> {
+            Map<Object, DataSource> pools = context.getBean(ReplicaRoutingDataSource.class).getResolvedDataSources();
+            HikariDataSource primary = (HikariDataSource) pools.get(ReplicaRoutingDataSource.PRIMARY);
+            HikariDataSource replica0 = (HikariDataSource) pools.get("replica-0");
+            HikariDataSource replica1 = (HikariDataSource) pools.get("replica-1");
+
+            Assertions.assertThat(primary.getMaximumPoolSize()).isEqualTo(7);
+            Assertions.assertThat(primary.getConnectionTimeout()).isEqualTo(2500);
+            Assertions.assertThat(replica0.getMaximumPoolSize()).isEqualTo(7);
+            Assertions.assertThat(replica0.getConnectionTimeout()).isEqualTo(2500);
+            Assertions.assertThat(replica0.getPoolName()).isEqualTo("replica-0");
+            Assertions.assertThat(replica1.getMaximumPoolSize()).isEqualTo(3);
+            Assertions.assertThat(replica1.getConnectionTimeout()).isEqualTo(2500);
+        });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+}
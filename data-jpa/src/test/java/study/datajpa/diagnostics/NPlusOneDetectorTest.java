@@ -0,0 +1,39 @@
+package study.datajpa.diagnostics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class NPlusOneDetectorTest {
+
+    //같은 select 가 threshold 번 실행되면 fail 모드에서는 예외
+    @Test
+    public void failOnRepeatedSelect() {
+        NPlusOneDetector detector = new NPlusOneDetector(NPlusOneDetector.Mode.FAIL, 3);
+        detector.begin();
+        try {
+            detector.inspect("select t.team_id from team t where t.team_id=?");
+            detector.inspect("select t.team_id from team t where t.team_id=?");
+
+            Assertions.assertThatThrownBy(() -> detector.inspect("select t.team_id from team t where t.team_id=?"))
+                    .isInstanceOf(NPlusOneException.class);
+        } finally {
+            detector.end();
+        }
+    }
+
+    //감지 구간 밖이거나 select 가 아니면 세지 않는다.
+    @Test
+    public void ignoreOutsideScopeAndUpdates() {
+        NPlusOneDetector detector = new NPlusOneDetector(NPlusOneDetector.Mode.FAIL, 2);
+        detector.inspect("select 1");
+        detector.inspect("select 1");
+
+        detector.begin();
+        try {
+            detector.inspect("update member set age=? where member_id=?");
+            detector.inspect("update member set age=? where member_id=?");
+        } finally {
+            detector.end();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {
+        "diagnostics.persistence-context.mode=clear",
+        "diagnostics.persistence-context.warn-entities=20"
+})
+class PersistenceContextGuardTest {
+
+    @Autowired
+    PersistenceContextGuard guard;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    //배치 구간에서는 기준을 넘으면 checkpoint 에서 비워서 관리 엔티티 수가 일정하게 유지된다.
+    @Test
+    public void clearInBatch() {
+        //given
+        double clears = registry.counter("persistence.context.guard.clears").count();
+
+        //when
+        int maxManaged = guard.batch(() -> {
+            int max = 0;
+            for (int i = 0; i < 200; i++) {
+                em.persist(new Member("guard" + i, 10));
+                guard.checkpoint(em);
+                max = Math.max(max, managed());
+            }
+            return max;
+        });
+
+        //then
+        Assertions.assertThat(maxManaged).isLessThanOrEqualTo(20);
+        Assertions.assertThat(registry.counter("persistence.context.guard.clears").count()).isGreaterThan(clears);
+    }
+
+    //배치 구간 밖에서는 비우지 않고 경고만 남긴다.
+    @Test
+    public void warnOutsideBatch() {
+        //given
+        double warnings = registry.counter("persistence.context.guard.warnings").count();
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            em.persist(new Member("guard" + i, 10));
+            guard.checkpoint(em);
+        }
+
+        //then
+        Assertions.assertThat(managed()).isGreaterThanOrEqualTo(50);
+        Assertions.assertThat(registry.counter("persistence.context.guard.warnings").count()).isGreaterThan(warnings);
+    }
+
+    //엔티티 수는 이벤트마다 비교하고 (스냅샷 추정 주기와 무관), 경고는 세션마다 한 번만 남긴다.
+    @Test
+    public void warnOncePerSession() {
+        //given
+        double warnings = registry.counter("persistence.context.guard.warnings").count();
+
+        //when
+        for (int i = 0; i < 19; i++) {
+            em.persist(new Member("guard" + i, 10));
+        }
+        double belowLimit = registry.counter("persistence.context.guard.warnings").count();
+        for (int i = 19; i < 100; i++) {
+            em.persist(new Member("guard" + i, 10));
+        }
+
+        //then
+        Assertions.assertThat(belowLimit).isEqualTo(warnings);
+        Assertions.assertThat(registry.counter("persistence.context.guard.warnings").count()).isEqualTo(warnings + 1);
+    }
+
+    private int managed() {
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+}
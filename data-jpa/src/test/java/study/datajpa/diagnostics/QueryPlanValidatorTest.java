@@ -0,0 +1,36 @@
+package study.datajpa.diagnostics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberSpecs;
+
+@SpringBootTest
+class QueryPlanValidatorTest {
+
+    @Autowired
+    QueryPlanValidator validator;
+
+    //username 단독 조건은 idx_member_username 을 탄다.
+    @Test
+    public void indexedShape() {
+        QueryPlanReport report = validator.explain("username", Member.class, MemberSpecs.usernameEq("member1"));
+
+        Assertions.assertThat(report.isFullScan()).as(report.getPlan()).isFalse();
+    }
+
+    //인덱스가 없는 컬럼 조건은 풀스캔으로 표시하고 인덱스를 제안한다.
+    @Test
+    public void fullScanShape() {
+        Specification<Member> byVersion = (root, query, cb) -> cb.equal(root.get("version"), 0L);
+
+        QueryPlanReport report = validator.explain("version", Member.class, byVersion);
+
+        Assertions.assertThat(report.getFullScanTables()).containsExactly("member");
+        Assertions.assertThat(report.getSuggestedIndexes()).hasSize(1);
+        Assertions.assertThat(report.getSuggestedIndexes().get(0)).contains("columnList = \"version\"");
+    }
+}
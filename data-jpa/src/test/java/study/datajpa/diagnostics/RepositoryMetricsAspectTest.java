@@ -0,0 +1,56 @@
+package study.datajpa.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.transaction.Transactional;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    //리파지토리 메소드 이름으로 태그가 붙은 지표가 남아야 한다.
+    @Test
+    public void recordPerMethod() {
+        //given
+        memberJpaRepository.save(new Member("member1", 10));
+        memberJpaRepository.save(new Member("member2", 10));
+
+        //when
+        memberJpaRepository.findByPage(10, 0, 10);
+        memberRepository.findByUsernameAndAgeGreaterThan("member1", 5);
+
+        //then
+        Timer latency = registry.find("repository.query.latency")
+                .tags("repository", "MemberJpaRepository", "method", "findByPage")
+                .timer();
+        DistributionSummary rows = registry.find("repository.query.rows")
+                .tags("repository", "MemberJpaRepository", "method", "findByPage")
+                .summary();
+        Timer derived = registry.find("repository.query.latency")
+                .tags("repository", "MemberRepository", "method", "findByUsernameAndAgeGreaterThan")
+                .timer();
+
+        Assertions.assertThat(latency).isNotNull();
+        Assertions.assertThat(latency.count()).isEqualTo(1);
+        Assertions.assertThat(rows.max()).isGreaterThanOrEqualTo(2);
+        Assertions.assertThat(derived).isNotNull();
+    }
+}
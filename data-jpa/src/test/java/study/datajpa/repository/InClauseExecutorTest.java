@@ -0,0 +1,121 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.service.RepositoryConcurrencyLimiter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//병렬 경로는 트랜잭션 밖에서만 타기 때문에 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class InClauseExecutorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ExecutorService repositoryExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    RepositoryConcurrencyLimiter limiter;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'inClause%'").executeUpdate());
+    }
+
+    //조각마다 읽기 전용 트랜잭션에서 실행되고, 조각 경계를 넘는 중복 값도 한 번만 조회된다.
+    @Test
+    public void parallelChunks() {
+        //given
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("inClause" + i, 10));
+            }
+        });
+        InClauseExecutor executor = new InClauseExecutor(3, repositoryExecutor, limiter, transactionManager);
+        //inClause0, inClause1 은 첫 조각과 두 번째 조각에 한 번씩 들어간다.
+        List<String> names = Arrays.asList("inClause0", "inClause1", "inClause2", "inClause0", "inClause3", "inClause4", "inClause1");
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> readOnly = Collections.synchronizedList(new ArrayList<>());
+
+        //when
+        List<Member> result = executor.query(names, chunk -> {
+            chunkSizes.add(chunk.size());
+            readOnly.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return memberRepository.findByName(chunk);
+        });
+
+        //then
+        Assertions.assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("inClause0", "inClause1", "inClause2", "inClause3", "inClause4");
+        Assertions.assertThat(chunkSizes).containsExactlyInAnyOrder(3, 2);
+        Assertions.assertThat(readOnly).containsOnly(true);
+    }
+
+    //조각 하나가 실패하면 CompletionException 이 아니라 원래 예외가 전달된다.
+    @Test
+    public void parallelChunkFailure() {
+        //given
+        InClauseExecutor executor = new InClauseExecutor(2, repositoryExecutor, limiter, transactionManager);
+        List<String> names = Arrays.asList("a", "b", "c", "boom", "d");
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> executor.query(names, chunk -> {
+            if (chunk.contains("boom")) {
+                throw new IllegalStateException("chunk failed");
+            }
+            return chunk;
+        }));
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(IllegalStateException.class).hasMessage("chunk failed");
+    }
+
+    //병렬 조각도 RepositoryConcurrencyLimiter 를 거쳐서 동시에 잡는 커넥션 수가 제한된다.
+    @Test
+    public void parallelChunksAreLimited() {
+        //given
+        RepositoryConcurrencyLimiter single = new RepositoryConcurrencyLimiter(1, 30000);
+        InClauseExecutor executor = new InClauseExecutor(1, repositoryExecutor, single, transactionManager);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        //when
+        List<String> result = executor.query(Arrays.asList("a", "b", "c", "d", "e", "f"), chunk -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return chunk;
+        });
+
+        //then
+        Assertions.assertThat(result).hasSize(6);
+        Assertions.assertThat(maxRunning.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import javax.transaction.Transactional;
+import java.util.concurrent.CompletableFuture;
+
+@SpringBootTest
+@Transactional
+class MemberCountCacheTest {
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    //쓰기 트랜잭션 안에서 센 값(커밋 전 insert 포함)은 다른 스레드에 보이지 않아야 한다.
+    @Test
+    public void uncommittedCountIsNotShared() throws Exception {
+        //given
+        memberRepository.save(new Member("countCache", 4321));
+
+        //when
+        long inTransaction = memberCountCache.countByAge(4321);
+        long otherThread = CompletableFuture.supplyAsync(() -> memberCountCache.countByAge(4321)).get();
+
+        //then
+        Assertions.assertThat(inTransaction).isEqualTo(1);
+        Assertions.assertThat(otherThread).isZero();
+    }
+}
@@ -5,13 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.web.WebAppConfiguration;
+import org.hibernate.engine.spi.SessionImplementor;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @SpringBootTest
 @Transactional
@@ -20,6 +25,12 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    MemberRepository memberRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
     @Test
     public void testMember() {
         Member member = new Member("memberA");
@@ -102,6 +113,136 @@ class MemberJpaRepositoryTest {
         }
     }
 
+    //순수 JPA 키셋(커서) 페이징 테스트
+    @Test
+    public void keysetPaging() {
+        memberJpaRepository.save(new Member("member1",10));
+        memberJpaRepository.save(new Member("member2",10));
+        memberJpaRepository.save(new Member("member3",10));
+        memberJpaRepository.save(new Member("member4",10));
+        memberJpaRepository.save(new Member("member5",10));
+
+        List<Member> first = memberJpaRepository.findByPageAfter(10, null, 3);
+        String cursor = MemberCursor.of(first.get(first.size() - 1)).encode();
+        List<Member> second = memberJpaRepository.findByPageAfter(10, cursor, 3);
+
+        Assertions.assertThat(first).extracting("username")
+                .containsExactly("member5", "member4", "member3");
+        Assertions.assertThat(second).extracting("username")
+                .containsExactly("member2", "member1");
+    }
+
+    //대량 insert 테스트
+    //batch_size 보다 많은 건수를 넣어도 flush + clear 후 모두 저장되어야 한다.
+    @Test
+    public void saveAllBatched() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("member" + i, i % 50));
+        }
+
+        long saved = memberJpaRepository.saveAllBatched(members);
+
+        Assertions.assertThat(saved).isEqualTo(250);
+        Assertions.assertThat(memberJpaRepository.count()).isEqualTo(250);
+    }
+
+    //StatelessSession 저장/조회 테스트
+    //회원은 영속성 컨텍스트에 올라가지 않고, 팀 인원 수는 마지막 재계산으로 맞춰진다.
+    //재계산 후에도 영속 상태의 팀은 새 인원 수를 보고, 그대로 수정할 수 있어야 한다.
+    @Test
+    public void stateless() {
+        //given
+        Team team = new Team("statelessTeam");
+        em.persist(team);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            members.add(new Member("stateless" + i, 10, team));
+        }
+        int managedBefore = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+
+        //when
+        long saved = memberJpaRepository.saveAllStateless(members);
+        int managedAfter = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        AtomicLong inTeam = new AtomicLong();
+        memberJpaRepository.forEachStateless(10, member -> {
+            if (member.getTeam() != null && "statelessTeam".equals(member.getTeam().getName())) {
+                inTeam.incrementAndGet();
+            }
+        });
+
+        //then
+        Assertions.assertThat(saved).isEqualTo(30);
+        Assertions.assertThat(managedAfter).isEqualTo(managedBefore);
+        Assertions.assertThat(inTeam.get()).isEqualTo(30);
+        Assertions.assertThat(team.getMemberCount()).isEqualTo(30);
+        team.setName("statelessTeamRenamed");
+        em.flush();
+        em.clear();
+        Assertions.assertThat(em.find(Team.class, team.getId()).getMemberCount()).isEqualTo(30);
+    }
+
+    //StatelessSession 으로 저장/조회한 회원은 isNew() 가 false 라서 save() 가 persist 대신 merge 한다.
+    @Test
+    public void statelessMembersAreNotNew() {
+        //given
+        Member saved = new Member("statelessNotNew", 10);
+        memberJpaRepository.saveAllStateless(List.of(saved));
+        AtomicReference<Member> streamed = new AtomicReference<>();
+        memberJpaRepository.forEachStateless(10, member -> {
+            if ("statelessNotNew".equals(member.getUsername())) {
+                streamed.set(member);
+            }
+        });
+
+        //when
+        saved.setAge(20);
+        memberRepository.save(saved);
+        streamed.get().setUsername("statelessNotNewStreamed");
+        memberRepository.save(streamed.get());
+        em.flush();
+        em.clear();
+
+        //then
+        Assertions.assertThat(saved.isNew()).isFalse();
+        Assertions.assertThat(streamed.get().isNew()).isFalse();
+        Member found = em.find(Member.class, saved.getId());
+        Assertions.assertThat(found.getUsername()).isEqualTo("statelessNotNewStreamed");
+    }
+
+    //StatelessSession insert 는 update timestamps 를 갱신하지 않으므로 캐시된 username 쿼리 결과를 직접 비운다.
+    @Test
+    public void statelessInsertEvictsUsernameQueryCache() {
+        //given
+        Assertions.assertThat(memberJpaRepository.findByUsername("statelessCached")).isEmpty();
+
+        //when
+        memberJpaRepository.saveAllStateless(List.of(new Member("statelessCached", 10)));
+
+        //then
+        Assertions.assertThat(memberJpaRepository.findByUsername("statelessCached")).hasSize(1);
+    }
+
+    //StatelessSession insert 는 컬렉션 캐시를 갱신하지 않으므로 회원이 들어간 팀의 Team.members 캐시를 직접 비운다.
+    @Test
+    public void statelessInsertEvictsTeamMembersCache() {
+        //given
+        Team team = new Team("statelessCollectionTeam");
+        em.persist(team);
+        em.persist(new Member("statelessCollection1", 10, team));
+        em.flush();
+        em.clear();
+        Assertions.assertThat(em.find(Team.class, team.getId()).getMembers()).hasSize(1);
+        em.clear();
+
+        //when
+        memberJpaRepository.saveAllStateless(List.of(new Member("statelessCollection2", 10, em.find(Team.class, team.getId()))));
+        em.clear();
+
+        //then
+        Assertions.assertThat(em.find(Team.class, team.getId()).getMembers()).hasSize(2);
+    }
+
     //벌크성 쿼리 테스트
     @Test
     public void bulk() {
@@ -118,4 +259,23 @@ class MemberJpaRepositoryTest {
         //then
         Assertions.assertThat(i).isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    //벌크 연산 후 쿼리 캐시 무효화 테스트
+    //벌크 update 가 Member 리전과 쿼리 캐시를 무효화해야 변경된 나이를 읽는다.
+    @Test
+    public void bulkInvalidatesQueryCache() {
+        //given
+        memberJpaRepository.save(new Member("member1", 20));
+        em.flush();
+        em.clear();
+        memberJpaRepository.findByUsername("member1");
+
+        //when
+        memberJpaRepository.bulkAgePlus(20);
+        em.clear();
+        List<Member> result = memberJpaRepository.findByUsername("member1");
+
+        //then
+        Assertions.assertThat(result.get(0).getAge()).isEqualTo(21);
+    }
+}
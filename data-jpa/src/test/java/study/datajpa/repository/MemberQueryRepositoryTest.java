@@ -0,0 +1,110 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberColumns;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Arrays;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberColumnarRepository memberColumnarRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    //Projection 조회 테스트
+    //조회 결과가 영속성 컨텍스트에 올라가지 않아야 한다.
+    @Test
+    public void projection() {
+        //given
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("AAA", 10, team));
+        em.persist(new Member("AAA", 20, team));
+        em.persist(new Member("BBB", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<MemberView> byUsername = memberQueryRepository.findViewByUsername("AAA");
+        List<MemberView> greaterThan = memberQueryRepository.findViewByUsernameAndAgeGreaterThan("AAA", 15);
+        List<MemberView> byName = memberQueryRepository.findViewByName(Arrays.asList("AAA", "BBB"));
+        List<MemberDto> dto = memberQueryRepository.findDtoByUsername("AAA");
+        Page<MemberView> page = memberQueryRepository.findViewByAge(20,
+                PageRequest.of(0, 1, Sort.Direction.DESC, "username"));
+
+        //then
+        Assertions.assertThat(byUsername).hasSize(2);
+        Assertions.assertThat(greaterThan).extracting("age").containsExactly(20);
+        Assertions.assertThat(byName).hasSize(3);
+        Assertions.assertThat(dto).extracting("teamName").containsOnly("teamA");
+        Assertions.assertThat(page.getContent()).extracting("username").containsExactly("BBB");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Assertions.assertThat(session.getPersistenceContext().getNumberOfManagedEntities()).isZero();
+    }
+
+    //컬럼형 조회 - 같은 팀 이름은 사전에 한 번만 들어간다.
+    @Test
+    public void columnar() {
+        //given
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("AAA", 1000, team));
+        em.persist(new Member("BBB", 1001, team));
+        em.persist(new Member("CCC", 1001));
+        em.flush();
+        em.clear();
+
+        //when
+        MemberColumns columns = memberColumnarRepository.findByAgeBetween(1000, 1001);
+
+        //then
+        Assertions.assertThat(columns.size()).isEqualTo(3);
+        Assertions.assertThat(columns.ages()).containsExactly(1000, 1001, 1001);
+        Assertions.assertThat(columns.username(0)).isEqualTo("AAA");
+        Assertions.assertThat(columns.teamName(1)).isEqualTo("teamA");
+        Assertions.assertThat(columns.teamName(2)).isNull();
+        Assertions.assertThat(columns.teamNames().cardinality()).isEqualTo(1);
+        Assertions.assertThat(columns.ids()[0]).isLessThan(columns.ids()[1]);
+    }
+
+    //빈 결과를 trim() 한 뒤에도 add() 로 다시 채울 수 있어야 한다.
+    @Test
+    public void columnarAddAfterTrim() {
+        //given
+        MemberColumns columns = new MemberColumns(0).trim();
+
+        //when
+        columns.add(1L, 10, "AAA", "teamA");
+        columns.add(2L, 20, "BBB", "teamA");
+
+        //then
+        Assertions.assertThat(columns.size()).isEqualTo(2);
+        Assertions.assertThat(columns.username(1)).isEqualTo("BBB");
+        Assertions.assertThat(columns.teamName(1)).isEqualTo("teamA");
+        Assertions.assertThat(columns.teamNames().cardinality()).isEqualTo(1);
+    }
+}
@@ -1,14 +1,18 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
@@ -16,8 +20,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @Transactional
@@ -150,6 +158,28 @@ class MemberRepositoryTest {
         }
     }
 
+    //파라미터 바인딩 - 대량 컬렉션 테스트
+    //chunk-size(1000) 보다 큰 컬렉션도 나눠서 조회한 결과를 합쳐야 한다.
+    @Test
+    public void findByNameLargeCollection() {
+        //given
+        memberRepository.save(new Member("AAA", 10));
+        memberRepository.save(new Member("BBB", 20));
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            names.add("name" + i);
+        }
+        names.add("AAA");
+        names.add("BBB");
+        names.add("AAA");
+
+        //when
+        List<Member> result = memberRepository.findByName(names);
+
+        //then
+        Assertions.assertThat(result).extracting("username").containsExactlyInAnyOrder("AAA", "BBB");
+    }
+
     //Spring Data JPA 페이징 테스트
     //PageRequest를 생성해야 한다.
     @Disabled
@@ -188,6 +218,142 @@ class MemberRepositoryTest {
         System.out.println("totalElements : " + totalElements);
     }
 
+    //키셋(커서) 페이징 테스트
+    //카운트 쿼리 없이 다음 페이지 여부만 확인한다.
+    @Test
+    public void keysetPaging() {
+        //given
+        for (int i = 1; i <= 7; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        memberRepository.save(new Member("member8", 20));
+
+        //when
+        Slice<Member> first = memberRepository.findByAgeAfter(10, null, 3);
+        String cursor = MemberCursor.of(first.getContent().get(2)).encode();
+        Slice<Member> second = memberRepository.findByAgeAfter(10, cursor, 3);
+        String lastCursor = MemberCursor.of(second.getContent().get(2)).encode();
+        Slice<Member> last = memberRepository.findByAgeAfter(10, lastCursor, 3);
+
+        //then
+        Assertions.assertThat(first.getContent()).extracting("username")
+                .containsExactly("member7", "member6", "member5");
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4", "member3", "member2");
+        Assertions.assertThat(last.getContent()).extracting("username")
+                .containsExactly("member1");
+        Assertions.assertThat(last.hasNext()).isFalse();
+    }
+
+    //스트리밍 조회 테스트
+    //fetchSize 건마다 clear 되어도 페치조인한 팀은 그대로 읽을 수 있어야 한다.
+    @Test
+    public void streamMember() {
+        //given
+        Team team = new Team("teamA");
+        em.persist(team);
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        List<String> teamNames;
+        try (Stream<Member> members = memberRepository.streamMemberCustom(3)) {
+            teamNames = members.map(m -> m.getTeam().getName()).collect(Collectors.toList());
+        }
+        long dtoCount;
+        try (Stream<MemberDto> dtos = memberRepository.streamMemberDto()) {
+            dtoCount = dtos.count();
+        }
+
+        //then
+        Assertions.assertThat(teamNames).hasSize(10).containsOnly("teamA");
+        Assertions.assertThat(dtoCount).isEqualTo(10);
+    }
+
+    //스트리밍 중 clear 테스트
+    //스트리밍 도중에 저장만 하고 flush 하지 않은 회원도 clear 로 사라지지 않고 DB 에 반영되어야 한다.
+    @Test
+    public void streamKeepsPendingChanges() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        AtomicLong streamed = new AtomicLong();
+        try (Stream<Member> members = memberRepository.streamMemberCustom(3)) {
+            members.forEach(member -> {
+                if (streamed.incrementAndGet() == 1) {
+                    memberRepository.save(new Member("pending", 10));
+                }
+            });
+        }
+
+        //then
+        Assertions.assertThat(streamed.get()).isEqualTo(10);
+        Assertions.assertThat(memberRepository.findByUsername("pending")).hasSize(1);
+    }
+
+    //스트리밍 중 clear 는 다음 행을 읽기 전에 하므로 넘겨받은 회원은 모두 영속 상태다.
+    @Test
+    public void streamHandsOutManagedEntities() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        AtomicLong detached = new AtomicLong();
+        AtomicLong streamed = new AtomicLong();
+        try (Stream<Member> members = memberRepository.streamMemberCustom(3)) {
+            members.forEach(member -> {
+                streamed.incrementAndGet();
+                if (!em.contains(member)) {
+                    detached.incrementAndGet();
+                }
+            });
+        }
+
+        //then
+        Assertions.assertThat(streamed.get()).isEqualTo(10);
+        Assertions.assertThat(detached.get()).isZero();
+    }
+
+    //카운트 캐시 페이징 테스트
+    //save / 벌크 연산 후에는 캐시가 비워져서 바뀐 count 를 읽어야 한다.
+    @Test
+    public void pagingWithCachedCount() {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 30));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.Direction.DESC, "username");
+
+        //when
+        Page<Member> first = memberRepository.findByAge(30, pageRequest);
+        Page<Member> joined = memberRepository.findByAge_count(30, pageRequest);
+        memberRepository.save(new Member("member6", 30));
+        Page<Member> afterSave = memberRepository.findByAge(30, pageRequest);
+        memberRepository.bulkAgePlus(30);
+        Page<Member> afterBulk = memberRepository.findByAge(30, pageRequest);
+
+        //then
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member5", "member4");
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(joined.getContent()).extracting("username").containsExactly("member5", "member4");
+        Assertions.assertThat(joined.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(afterSave.getTotalElements()).isEqualTo(6);
+        Assertions.assertThat(afterBulk.getTotalElements()).isEqualTo(0);
+    }
+
     //벌크성 쿼리 테스트
     @Disabled
     @Test
@@ -241,6 +407,33 @@ class MemberRepositoryTest {
         }
     }
 
+    //지연로딩 배치 조회 테스트
+    //default_batch_fetch_size 설정으로 팀 프록시를 IN 절 한 번에 초기화한다.
+    //회원 조회 1번 + 팀 조회 1번
+    @Test
+    public void batchFetchTeam() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+
+        //when
+        Page<Member> page = memberRepository.findByAge(10, PageRequest.of(0, 5, Sort.Direction.ASC, "username"));
+        for (Member member : page.getContent()) {
+            member.getTeam().getName();
+        }
+
+        //then
+        //페이지 조회 + 카운트 쿼리 + 팀 IN 조회
+        Assertions.assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(3);
+    }
+
     //Hint 테스트
     @Test
     public void queryHint() {
@@ -261,4 +454,33 @@ class MemberRepositoryTest {
     public void callcustom() {
         List<Member> memberCustom = memberRepository.findMemberCustom();
     }
-}
\ No newline at end of file
+
+    //Specification 동적 조건 + 정렬 + 페이징
+    //null 조건은 빠지고, 같은 조건 조합은 값이 달라도 같은 JPQL 이 만들어진다.
+    @Test
+    public void specification() {
+        //given
+        Team teamA = new Team("specTeamA");
+        Team teamB = new Team("specTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        memberRepository.save(new Member("spec1", 4010, teamA));
+        memberRepository.save(new Member("spec2", 4020, teamA));
+        memberRepository.save(new Member("spec3", 4030, teamA));
+        memberRepository.save(new Member("spec4", 4030, teamB));
+        em.flush();
+        em.clear();
+
+        //when
+        Page<Member> page = memberRepository.findAll(
+                MemberSpecs.search(new MemberSearchCondition(null, 4015, 4030, "specTeamA")),
+                PageRequest.of(0, 1, Sort.Direction.DESC, "age"));
+        List<Member> byUsername = memberRepository.findAll(
+                MemberSpecs.search(new MemberSearchCondition("spec4", null, null, null)));
+
+        //then
+        Assertions.assertThat(page.getContent()).extracting("username").containsExactly("spec3");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(byUsername).extracting("age").containsExactly(4030);
+    }
+}
@@ -0,0 +1,261 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@Transactional
+class TeamJpaRepositoryTest {
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    //2차 캐시 테스트
+    //영속성 컨텍스트를 비운 뒤 다시 조회하면 DB가 아니라 2차 캐시에서 가져온다.
+    @Test
+    public void secondLevelCache() {
+        //given
+        Team team = teamJpaRepository.save(new Team("teamA"));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        teamJpaRepository.findById(team.getId());
+        em.clear();
+        long hitCount = statistics.getSecondLevelCacheHitCount();
+
+        //when
+        Team findTeam = teamJpaRepository.findById(team.getId()).get();
+
+        //then
+        Assertions.assertThat(findTeam.getName()).isEqualTo("teamA");
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hitCount);
+    }
+
+    //팀 인원 수 테스트
+    //저장/팀 변경/삭제 시 members 컬렉션을 읽지 않아도 인원 수가 맞아야 하고, 팀 version 은 그대로여야 한다.
+    @Test
+    public void memberCount() {
+        //given
+        Team teamA = teamJpaRepository.save(new Team("teamA"));
+        Team teamB = teamJpaRepository.save(new Team("teamB"));
+        em.flush();
+        Long versionA = teamA.getVersion();
+        Long versionB = teamB.getVersion();
+        Member member1 = memberJpaRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberJpaRepository.save(new Member("member2", 10, teamA));
+        memberJpaRepository.save(new Member("member3", 10, teamA));
+        em.flush();
+
+        //when
+        member1.changeTeam(teamB);
+        memberJpaRepository.delete(member2);
+        em.flush();
+        em.clear();
+
+        //then
+        List<Team> teams = teamJpaRepository.findAllOrderByMemberCount(0, 10);
+        Team findA = teamJpaRepository.findById(teamA.getId()).get();
+        Team findB = teamJpaRepository.findById(teamB.getId()).get();
+        Assertions.assertThat(findA.getMemberCount()).isEqualTo(1);
+        Assertions.assertThat(findB.getMemberCount()).isEqualTo(1);
+        Assertions.assertThat(findA.getVersion()).isEqualTo(versionA);
+        Assertions.assertThat(findB.getVersion()).isEqualTo(versionB);
+        Assertions.assertThat(teams).isNotEmpty();
+    }
+
+    //인원 수를 반영해도 Team 2차 캐시 전체가 아니라 바뀐 팀만 비워진다.
+    @Test
+    public void memberCountEvictsOnlyChangedTeam() {
+        //given
+        Team teamA = teamJpaRepository.save(new Team("teamA"));
+        Team teamB = teamJpaRepository.save(new Team("teamB"));
+        em.flush();
+        em.clear();
+        teamJpaRepository.findById(teamA.getId());
+        teamJpaRepository.findById(teamB.getId());
+        javax.persistence.Cache cache = em.getEntityManagerFactory().getCache();
+        boolean cachedBefore = cache.contains(Team.class, teamA.getId()) && cache.contains(Team.class, teamB.getId());
+
+        //when
+        memberJpaRepository.save(new Member("member1", 10, em.getReference(Team.class, teamA.getId())));
+        em.flush();
+
+        //then
+        Assertions.assertThat(cachedBefore).isTrue();
+        Assertions.assertThat(cache.contains(Team.class, teamA.getId())).isFalse();
+        Assertions.assertThat(cache.contains(Team.class, teamB.getId())).isTrue();
+        em.clear();
+        Assertions.assertThat(teamJpaRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(1);
+    }
+
+    //인원 수를 반영한 뒤에도 영속 상태의 팀을 수정할 수 있어야 한다. (version 충돌 없음, 인원 수는 덮어쓰지 않음)
+    @Test
+    public void updateTeamAfterMemberCount() {
+        //given
+        Team team = teamJpaRepository.save(new Team("teamA"));
+        memberJpaRepository.save(new Member("member1", 10, team));
+        em.flush();
+
+        //when
+        team.setName("renamed");
+        em.flush();
+        em.clear();
+
+        //then
+        Team findTeam = teamJpaRepository.findById(team.getId()).get();
+        Assertions.assertThat(findTeam.getName()).isEqualTo("renamed");
+        Assertions.assertThat(findTeam.getMemberCount()).isEqualTo(1);
+    }
+
+    //같은 팀에 동시에 회원을 저장해도 팀 version 충돌 없이 인원 수가 맞아야 한다.
+    //트랜잭션마다 커밋해야 해서 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void concurrentInsertsIntoSameTeam() throws Exception {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team saved = tx.execute(status -> teamJpaRepository.save(new Team("concurrentTeam")));
+        int threads = 4;
+        int perThread = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            //when
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        String username = "concurrent" + thread + "_" + i;
+                        tx.executeWithoutResult(status -> {
+                            Team team = teamJpaRepository.findById(saved.getId()).get();
+                            memberJpaRepository.save(new Member(username, 10, team));
+                        });
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            //then
+            Team findTeam = tx.execute(status -> teamJpaRepository.findById(saved.getId()).get());
+            Assertions.assertThat(findTeam.getMemberCount()).isEqualTo(threads * perThread);
+            Assertions.assertThat(findTeam.getVersion()).isEqualTo(saved.getVersion());
+        } finally {
+            executor.shutdown();
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.username like 'concurrent%'").executeUpdate();
+                em.createQuery("delete from Team t where t.name = 'concurrentTeam'").executeUpdate();
+            });
+        }
+    }
+
+    //대량 insert 후 인원 수 테스트
+    //flush + clear 로 팀이 준영속이 되어도 flush 마다 인원 수가 반영되어야 한다.
+    @Test
+    public void memberCountAfterBatchInsert() {
+        //given
+        Team team = teamJpaRepository.save(new Team("teamA"));
+        em.flush();
+        em.clear();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Member member = new Member("member" + i, 10);
+            member.setTeam(team);
+            members.add(member);
+        }
+
+        //when
+        memberJpaRepository.saveAllBatched(members);
+
+        //then
+        Assertions.assertThat(teamJpaRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(150);
+    }
+
+    //팀 변경 시 members 캐시 무효화 테스트
+    //이전 팀의 members 컬렉션을 읽지 않고, 2차 캐시에 남은 이전 팀의 members 는 비워져야 한다.
+    @Test
+    public void changeTeamEvictsMembersCache() {
+        //given
+        Team teamA = teamJpaRepository.save(new Team("teamA"));
+        Team teamB = teamJpaRepository.save(new Team("teamB"));
+        Member member1 = memberJpaRepository.save(new Member("member1", 10, teamA));
+        memberJpaRepository.save(new Member("member2", 10, teamA));
+        em.flush();
+        em.clear();
+        teamJpaRepository.findById(teamA.getId()).get().getMembers().size();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        Member findMember = memberJpaRepository.find(member1.getId());
+        findMember.changeTeam(teamJpaRepository.findById(teamB.getId()).get());
+        em.flush();
+        long collectionLoads = statistics.getCollectionLoadCount();
+        em.clear();
+
+        //then
+        Assertions.assertThat(collectionLoads).isZero();
+        Assertions.assertThat(teamJpaRepository.findById(teamA.getId()).get().getMembers()).hasSize(1);
+    }
+
+    //save() 는 isNew() 로 새 엔티티를 판단해서 merge 용 SELECT 없이 persist 한다.
+    @Test
+    public void saveWithoutSelect() {
+        //given
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Team team = new Team("teamA");
+
+        //when
+        Team saved = teamRepository.save(team);
+        em.flush();
+
+        //then
+        Assertions.assertThat(saved).isSameAs(team);
+        Assertions.assertThat(saved.isNew()).isFalse();
+        Assertions.assertThat(saved.getId()).isNotNull();
+        Assertions.assertThat(statistics.getEntityLoadCount()).isZero();
+        Assertions.assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+}
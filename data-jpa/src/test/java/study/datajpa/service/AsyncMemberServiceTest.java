@@ -0,0 +1,136 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.cache.MemberUsernameCache;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberQueryRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+//조회는 repositoryExecutor 스레드에서 실행되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class AsyncMemberServiceTest {
+
+    @Autowired
+    AsyncMemberService asyncMemberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberUsernameCache memberUsernameCache;
+
+    @Autowired
+    ExecutorService repositoryExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username = 'async'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'asyncTeam'").executeUpdate();
+        });
+        memberUsernameCache.invalidate("async");
+    }
+
+    //username 조회는 캐시를 거친다. 캐시에 있으면 DB 를 다시 읽지 않는다.
+    @Test
+    public void findByUsernameUsesCache() throws Exception {
+        //given
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team team = new Team("asyncTeam");
+            em.persist(team);
+            em.persist(new Member("async", 10, team));
+        });
+        List<MemberDto> first = asyncMemberService.findByUsername("async").get(5, TimeUnit.SECONDS);
+
+        //when
+        //엔티티 이벤트 없이 지워서 캐시에는 이전 값이 남아 있는 상태
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username = 'async'").executeUpdate());
+        List<MemberDto> second = asyncMemberService.findByUsername("async").get(5, TimeUnit.SECONDS);
+
+        //then
+        Assertions.assertThat(first).extracting("teamName").containsExactly("asyncTeam");
+        Assertions.assertThat(second).extracting("username").containsExactly("async");
+    }
+
+    //다른 스레드의 읽기 전용 트랜잭션에서 조회한 DTO 가 그대로 전달되어야 한다.
+    @Test
+    public void findById() throws Exception {
+        //given
+        Long memberId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("asyncTeam");
+            em.persist(team);
+            Member member = new Member("async", 10, team);
+            em.persist(member);
+            return member.getId();
+        });
+
+        //when
+        Optional<MemberDto> found = asyncMemberService.findById(memberId).get(5, TimeUnit.SECONDS);
+        Optional<MemberDto> missing = asyncMemberService.findById(-1L).get(5, TimeUnit.SECONDS);
+
+        //then
+        Assertions.assertThat(found).isPresent();
+        Assertions.assertThat(found.get().getUsername()).isEqualTo("async");
+        Assertions.assertThat(found.get().getTeamName()).isEqualTo("asyncTeam");
+        Assertions.assertThat(missing).isEmpty();
+    }
+
+    //쿼리 예외는 CompletionException 에 감싸지지 않고 ExecutionException 의 원인으로 전달된다.
+    @Test
+    public void queryExceptionPropagates() {
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> asyncMemberService
+                .findByAge(10, PageRequest.of(0, 1, Sort.by("noSuchProperty")))
+                .get(5, TimeUnit.SECONDS));
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(ExecutionException.class);
+        Assertions.assertThat(thrown.getCause()).isInstanceOf(DataAccessException.class);
+    }
+
+    //동시 실행 제한에 걸려 거절되면 RejectedExecutionException 으로 끝난다.
+    @Test
+    public void limiterRejectionPropagates() {
+        //given
+        RepositoryConcurrencyLimiter noPermits = new RepositoryConcurrencyLimiter(0, 10);
+        AsyncMemberService service = new AsyncMemberService(memberRepository, memberQueryRepository,
+                memberUsernameCache, noPermits, repositoryExecutor, transactionManager);
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> service.findMemberDto().get(5, TimeUnit.SECONDS));
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(ExecutionException.class);
+        Assertions.assertThat(thrown.getCause()).isInstanceOf(RejectedExecutionException.class);
+    }
+}
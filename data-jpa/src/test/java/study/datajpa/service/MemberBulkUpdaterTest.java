@@ -0,0 +1,137 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCountCache;
+import study.datajpa.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//청크마다 별도 트랜잭션으로 커밋하기 때문에 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+@TestPropertySource(properties = "bulk.member.chunk-size=10")
+class MemberBulkUpdaterTest {
+
+    @Autowired
+    MemberBulkUpdater memberBulkUpdater;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'bulk%'").executeUpdate());
+    }
+
+    @Test
+    public void agePlusByChunk() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 55; i++) {
+            members.add(new Member("bulk" + i, i < 5 ? 900 : 950));
+        }
+        memberJpaRepository.saveAllBatched(members);
+        AtomicInteger progressCalls = new AtomicInteger();
+
+        //when
+        long updated = memberBulkUpdater.agePlus(950, true, (done, total, rows) -> progressCalls.incrementAndGet());
+
+        //then
+        Assertions.assertThat(updated).isEqualTo(50);
+        Assertions.assertThat(progressCalls.get()).isGreaterThanOrEqualTo(5);
+        Long changed = em.createQuery("select count(m) from Member m where m.age = 951", Long.class)
+                .getSingleResult();
+        Assertions.assertThat(changed).isEqualTo(50);
+    }
+
+    //중간 청크 실패 테스트
+    //마지막 청크는 나이 overflow 로 롤백되지만, 먼저 커밋된 청크는 2차 캐시/쿼리 캐시/회원 수 캐시에서 비워져야 한다.
+    @Test
+    public void evictCommittedChunksOnFailure() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 19; i++) {
+            members.add(new Member("bulk" + i, 950));
+        }
+        members.add(new Member("bulkOverflow", Integer.MAX_VALUE));
+        memberJpaRepository.saveAllBatched(members);
+        Long firstId = members.get(0).getId();
+        memberJpaRepository.findById(firstId);
+        memberJpaRepository.findByUsername("bulk0");
+        long countBefore = memberCountCache.countByAge(950);
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> memberBulkUpdater.agePlus(950, false, null));
+
+        //then
+        Assertions.assertThat(thrown).isNotNull();
+        Assertions.assertThat(countBefore).isEqualTo(19);
+        Assertions.assertThat(memberJpaRepository.findById(firstId).get().getAge()).isEqualTo(951);
+        Assertions.assertThat(memberJpaRepository.findByUsername("bulk0").get(0).getAge()).isEqualTo(951);
+        Assertions.assertThat(memberCountCache.countByAge(950)).isLessThan(19);
+    }
+
+    //병렬 실행 중 청크가 실패하면 실행 중인 청크가 끝난 뒤에 예외가 나야 한다. (예외 이후에 커밋되는 청크가 없어야 한다.)
+    @Test
+    public void parallelFailureWaitsForRunningChunks() throws InterruptedException {
+        //given
+        List<Member> members = new ArrayList<>();
+        members.add(new Member("bulkOverflow", Integer.MAX_VALUE));
+        for (int i = 0; i < 39; i++) {
+            members.add(new Member("bulk" + i, 950));
+        }
+        memberJpaRepository.saveAllBatched(members);
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> memberBulkUpdater.agePlus(950, true, null));
+        Long afterThrow = countAge(951);
+        Thread.sleep(200);
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(countAge(951)).isEqualTo(afterThrow);
+    }
+
+    //version 이 NULL 인 행도 version 이 올라가야 한다.
+    @Test
+    public void nullVersionIsIncremented() {
+        //given
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createNativeQuery("insert into member (member_id, username, age, version) values (900000001, 'bulkNullVersion', 960, null)")
+                        .executeUpdate());
+
+        //when
+        memberBulkUpdater.agePlus(960);
+
+        //then
+        Object version = em.createNativeQuery("select version from member where member_id = 900000001").getSingleResult();
+        Assertions.assertThat(((Number) version).longValue()).isEqualTo(1L);
+    }
+
+    private Long countAge(int age) {
+        return em.createQuery("select count(m) from Member m where m.age = :age and m.username like 'bulk%'", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//동시 수정은 커밋된 데이터가 필요해서 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class MemberServiceTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username = 'locked'").executeUpdate());
+    }
+
+    //낙관적 락 충돌이 나도 재시도해서 모든 변경이 반영되어야 한다.
+    @Test
+    public void retryOnOptimisticLock() {
+        //given
+        Long memberId = new TransactionTemplate(transactionManager).execute(status -> {
+            Member member = new Member("locked", 0);
+            em.persist(member);
+            return member.getId();
+        });
+        int updates = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < updates; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> memberService.agePlus(memberId), executor));
+        }
+        futures.forEach(CompletableFuture::join);
+        executor.shutdown();
+
+        //then
+        Member member = em.find(Member.class, memberId);
+        Assertions.assertThat(member.getAge()).isEqualTo(updates);
+        Assertions.assertThat(member.getVersion()).isEqualTo(updates);
+    }
+}
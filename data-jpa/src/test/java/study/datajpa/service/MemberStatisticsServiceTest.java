@@ -0,0 +1,108 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.TeamAgeStatistics;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+//병렬 집계는 작업마다 별도 트랜잭션이라 커밋된 데이터로 테스트하고 직접 정리한다.
+@SpringBootTest
+@TestPropertySource(properties = "stats.leaf-id-range=5")
+class MemberStatisticsServiceTest {
+
+    @Autowired
+    MemberStatisticsService memberStatisticsService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'stats%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'statsTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void teamAgeStatistics() {
+        //given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("statsTeam");
+            em.persist(team);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("stats" + i, 20 + i % 3, team));
+            }
+            return team.getId();
+        });
+
+        //when
+        TeamAgeStatistics stats = memberStatisticsService.teamAgeStatistics().stream()
+                .filter(s -> teamId.equals(s.getTeamId()))
+                .findFirst()
+                .get();
+
+        //then
+        Assertions.assertThat(stats.getTeamName()).isEqualTo("statsTeam");
+        Assertions.assertThat(stats.getCount()).isEqualTo(30);
+        Assertions.assertThat(stats.getMinAge()).hasValue(20);
+        Assertions.assertThat(stats.getMaxAge()).hasValue(22);
+        Assertions.assertThat(stats.getAvgAge()).isEqualTo(21.0);
+        Assertions.assertThat(stats.countOf(21)).isEqualTo(10);
+        Assertions.assertThat(stats.getAges()).containsExactly(20, 21, 22);
+    }
+
+    //나이 범위 제한이 없으므로 음수나 아주 큰 나이도 배열 없이 집계되어야 한다.
+    @Test
+    public void outOfRangeAges() {
+        //given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("statsTeam");
+            em.persist(team);
+            em.persist(new Member("stats-negative", -5, team));
+            em.persist(new Member("stats-normal", 30, team));
+            em.persist(new Member("stats-max", Integer.MAX_VALUE, team));
+            return team.getId();
+        });
+
+        //when
+        TeamAgeStatistics stats = memberStatisticsService.teamAgeStatistics().stream()
+                .filter(s -> teamId.equals(s.getTeamId()))
+                .findFirst()
+                .get();
+
+        //then
+        Assertions.assertThat(stats.getCount()).isEqualTo(3);
+        Assertions.assertThat(stats.getMinAge()).hasValue(-5);
+        Assertions.assertThat(stats.getMaxAge()).hasValue(Integer.MAX_VALUE);
+        Assertions.assertThat(stats.getAges()).containsExactly(-5, 30, Integer.MAX_VALUE);
+        Assertions.assertThat(stats.getCounts()).containsExactly(1L, 1L, 1L);
+        Assertions.assertThat(stats.getAvgAge()).isEqualTo((Integer.MAX_VALUE + 25.0) / 3);
+    }
+
+    //회원이 없으면 min/max 는 비어 있다. (나이는 음수도 될 수 있어서 -1 같은 값으로 표시하지 않는다.)
+    @Test
+    public void emptyHistogram() {
+        //when
+        TeamAgeStatistics stats = new TeamAgeStatistics(1L, "empty", new int[0], new long[0]);
+
+        //then
+        Assertions.assertThat(stats.getCount()).isZero();
+        Assertions.assertThat(stats.getMinAge()).isEmpty();
+        Assertions.assertThat(stats.getMaxAge()).isEmpty();
+        Assertions.assertThat(stats.countOf(-1)).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class RepositoryConcurrencyLimiterTest {
+
+    //허용 수만큼 실행 중이면 나머지는 acquire-timeout-ms 뒤에 거절된다.
+    @Test
+    public void rejectAfterTimeout() throws Exception {
+        //given
+        RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(1, 50);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> limiter.call(() -> {
+            running.countDown();
+            await(release);
+            return "done";
+        }));
+        running.await(5, TimeUnit.SECONDS);
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> limiter.call(() -> "rejected"));
+        release.countDown();
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(RejectedExecutionException.class);
+        Assertions.assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        Assertions.assertThat(limiter.call(() -> "next")).isEqualTo("next");
+    }
+
+    //작업이 예외를 던져도 허용 수를 돌려줘야 한다.
+    @Test
+    public void releaseOnException() {
+        //given
+        RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(1, 0);
+
+        //when
+        Throwable thrown = Assertions.catchThrowable(() -> limiter.call(() -> {
+            throw new IllegalStateException("query failed");
+        }));
+
+        //then
+        Assertions.assertThat(thrown).isInstanceOf(IllegalStateException.class).hasMessage("query failed");
+        Assertions.assertThat(limiter.call(() -> "next")).isEqualTo("next");
+        Assertions.assertThat(limiter.waiting()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package study.datajpa.view;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.TimeUnit;
+
+//변경 피드는 커밋 후에 전달되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class MemberDtoViewTest {
+
+    @Autowired
+    MemberDtoView memberDtoView;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'view%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'view%'").executeUpdate();
+        });
+    }
+
+    //저장 / 팀 이동 / 팀 이름 변경 / 삭제가 다시 읽지 않고 뷰에 반영된다.
+    @Test
+    public void incrementalUpdate() {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        memberDtoView.findAll();
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("viewTeamA");
+            Team teamB = new Team("viewTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("view1", 10, teamA);
+            Member member2 = new Member("view2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            return new Long[]{member1.getId(), member2.getId(), teamA.getId(), teamB.getId()};
+        });
+
+        //when
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, ids[0]).changeTeam(em.find(Team.class, ids[3]));
+            em.find(Team.class, ids[2]).setName("viewTeamRenamed");
+            em.remove(em.find(Member.class, ids[1]));
+        });
+
+        //then
+        Assertions.assertThat(memberDtoView.isStale()).isFalse();
+        Assertions.assertThat(memberDtoView.findByTeamName("viewTeamB")).extracting("username").containsExactly("view1");
+        Assertions.assertThat(memberDtoView.findByTeamName("viewTeamA")).isEmpty();
+        Assertions.assertThat(memberDtoView.findById(ids[1])).isEmpty();
+        Assertions.assertThat(memberDtoView.findAll()).extracting(MemberDto::getId).contains(ids[0]);
+    }
+
+    //롤백된 변경은 반영되지 않고, 벌크 연산 후에는 전체를 다시 읽는다.
+    @Test
+    public void rollbackAndBulkRebuild() {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        memberDtoView.findAll();
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("viewBulk", 3000);
+            em.persist(member);
+            return member.getId();
+        });
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setUsername("viewRolledBack");
+            em.flush();
+            status.setRollbackOnly();
+        });
+        tx.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.username = 'viewBulkRenamed' where m.id = :id")
+                        .setParameter("id", memberId)
+                        .executeUpdate());
+        String beforeBulk = memberDtoView.findById(memberId).get().getUsername();
+
+        //when
+        memberRepository.bulkAgePlus(3000);
+
+        //then
+        Assertions.assertThat(beforeBulk).isEqualTo("viewBulk");
+        Assertions.assertThat(memberDtoView.isStale()).isTrue();
+        Assertions.assertThat(memberDtoView.findById(memberId).get().getUsername()).isEqualTo("viewBulkRenamed");
+    }
+
+    //커밋 순서와 다르게 도착한 이전 이벤트는 더 새로운 행을 덮어쓰지 않는다.
+    @Test
+    public void outOfOrderEvents() {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        memberDtoView.findAll();
+        Long[] ids = tx.execute(status -> {
+            Team team = new Team("viewOrderTeam");
+            em.persist(team);
+            Member member = new Member("viewOrder", 10, team);
+            em.persist(member);
+            return new Long[]{member.getId(), team.getId()};
+        });
+
+        //when
+        memberDtoView.apply(MemberChange.memberSaved(ids[0], "viewOrder2", ids[1], 2L));
+        memberDtoView.apply(MemberChange.memberSaved(ids[0], "viewOrder1", ids[1], 1L));
+        memberDtoView.apply(MemberChange.teamSaved(ids[1], "viewOrderTeam2", 2L));
+        memberDtoView.apply(MemberChange.teamSaved(ids[1], "viewOrderTeam1", 1L));
+
+        //then
+        Assertions.assertThat(memberDtoView.findById(ids[0]).get().getUsername()).isEqualTo("viewOrder2");
+        Assertions.assertThat(memberDtoView.findById(ids[0]).get().getTeamName()).isEqualTo("viewOrderTeam2");
+
+        //when - 삭제 뒤에 늦게 도착한 저장 이벤트
+        memberDtoView.apply(MemberChange.memberDeleted(ids[0], 2L));
+        memberDtoView.apply(MemberChange.memberSaved(ids[0], "viewOrderLate", ids[1], 1L));
+
+        //then
+        Assertions.assertThat(memberDtoView.findById(ids[0])).isEmpty();
+    }
+
+    //삭제 기록은 tombstone-ttl-ms 가 지나면 버려져서 계속 쌓이지 않는다.
+    @Test
+    public void tombstonesExpire() {
+        //given
+        memberDtoView.findAll();
+        memberDtoView.pruneTombstones(System.nanoTime());
+        int before = memberDtoView.tombstoneCount();
+        memberDtoView.apply(MemberChange.memberDeleted(-100L, 1L));
+        memberDtoView.apply(MemberChange.teamDeleted(-100L, 1L));
+
+        //when
+        int afterDelete = memberDtoView.tombstoneCount();
+        memberDtoView.pruneTombstones(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+
+        //then
+        Assertions.assertThat(afterDelete).isEqualTo(before + 2);
+        Assertions.assertThat(memberDtoView.tombstoneCount()).isZero();
+    }
+}
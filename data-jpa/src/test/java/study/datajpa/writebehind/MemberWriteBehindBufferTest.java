@@ -0,0 +1,145 @@
+package study.datajpa.writebehind;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+//flush 는 별도 트랜잭션으로 커밋하기 때문에 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+//주기 flush 는 끄고(긴 간격) 테스트에서 직접 flush 한다.
+//저널 디렉토리는 실행마다 새로 만든다. (중단된 이전 실행의 저널이 기동 시 다른 회원 id 로 복구되지 않게)
+@SpringBootTest
+@TestPropertySource(properties = {
+        "write-behind.member.enabled=true",
+        "write-behind.member.flush-interval-ms=600000"
+})
+class MemberWriteBehindBufferTest {
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("write-behind-test");
+        registry.add("write-behind.member.journal-dir", dir::toString);
+    }
+
+    @Autowired
+    MemberWriteBehindBuffer buffer;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'writeBehind%'").executeUpdate());
+    }
+
+    //같은 회원의 변경은 마지막 값 하나로 합쳐져서 update 한 번으로 써진다.
+    @Test
+    public void coalesceAndFlush() {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("writeBehind1", 10);
+            em.persist(member);
+            return member.getId();
+        });
+
+        //when
+        buffer.setAge(memberId, 11);
+        buffer.setAge(memberId, 12);
+        buffer.setAge(memberId, 13);
+        int pending = buffer.pendingCount();
+        int flushed = buffer.flush();
+
+        //then
+        Member member = tx.execute(status -> em.find(Member.class, memberId));
+        Assertions.assertThat(pending).isEqualTo(1);
+        Assertions.assertThat(flushed).isEqualTo(1);
+        Assertions.assertThat(buffer.pendingCount()).isZero();
+        Assertions.assertThat(member.getAge()).isEqualTo(13);
+        Assertions.assertThat(member.getVersion()).isEqualTo(1L);
+    }
+
+    //flush 도중 죽은 경우 - flushing 저널과 active 저널을 합쳐서 복구하고, 나중 값이 이긴다.
+    @Test
+    public void journalRecovery(@TempDir Path dir) throws Exception {
+        //given
+        WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+        journal.recover();
+        journal.append(1L, 10);
+        journal.append(2L, 20);
+        journal.rotate();
+        journal.append(1L, 11);
+        journal.close();
+
+        //when
+        Map<Long, Integer> recovered;
+        try (WriteBehindJournal restarted = new WriteBehindJournal(dir, false)) {
+            recovered = restarted.recover();
+        }
+        Map<Long, Integer> again;
+        try (WriteBehindJournal restartedAgain = new WriteBehindJournal(dir, false)) {
+            again = restartedAgain.recover();
+        }
+
+        //then
+        Assertions.assertThat(recovered).containsEntry(1L, 11).containsEntry(2L, 20).hasSize(2);
+        Assertions.assertThat(again).isEqualTo(recovered);
+    }
+
+    //requeue 가 저널에 다시 쓰지 못해 flushing 이 남아 있으면 rotate 는 덮어쓰지 않고 합친다.
+    @Test
+    public void rotateMergesLeftoverFlushing(@TempDir Path dir) throws Exception {
+        //given
+        try (WriteBehindJournal journal = new WriteBehindJournal(dir, false)) {
+            journal.recover();
+            journal.append(1L, 10);
+            journal.append(2L, 20);
+            journal.rotate();
+            journal.append(1L, 11);
+            journal.append(3L, 30);
+
+            //when
+            journal.rotate();
+        }
+
+        //then
+        Map<Long, Integer> recovered;
+        try (WriteBehindJournal restarted = new WriteBehindJournal(dir, false)) {
+            recovered = restarted.recover();
+        }
+        Assertions.assertThat(recovered).containsEntry(1L, 11).containsEntry(2L, 20).containsEntry(3L, 30).hasSize(3);
+    }
+
+    //같은 저널 디렉토리는 한 번에 하나만 열 수 있다.
+    @Test
+    public void journalDirectoryIsLocked(@TempDir Path dir) throws Exception {
+        try (WriteBehindJournal journal = new WriteBehindJournal(dir, false)) {
+            //when
+            Throwable thrown = Assertions.catchThrowable(() -> new WriteBehindJournal(dir, false));
+
+            //then
+            Assertions.assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        }
+        //닫으면 다시 열 수 있다.
+        new WriteBehindJournal(dir, false).close();
+    }
+}